@@ -4,6 +4,7 @@ import de.reports.gui.MainWindow;
 import de.reports.i18n.MessageBundle;
 import de.reports.utils.ConfigManager;
 import de.reports.utils.FileUtils;
+import de.reports.utils.TaskScheduler;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
@@ -85,8 +86,8 @@ public class JasperReportsApp extends Application {
         logger.info("Shutting down application...");
 
         try {
-            // Cleanup tasks
-            // Any cleanup code would go here
+            // Stop background workers (logs lane metrics)
+            TaskScheduler.getInstance().shutdown();
 
             logger.info("Application shutdown complete");
         } catch (Exception e) {
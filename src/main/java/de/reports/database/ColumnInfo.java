@@ -1,8 +1,13 @@
 package de.reports.database;
 
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Objects;
 
 public class ColumnInfo {
+    private static final int LARGE_VALUE_SIZE = 4000;
+
     private String name;
     private String dataType;
     private int size;
@@ -10,6 +15,8 @@ public class ColumnInfo {
     private String defaultValue;
     private boolean isPrimaryKey;
     private boolean isAutoIncrement;
+    private boolean indexed;
+    private int jdbcType = Types.OTHER;
 
     public ColumnInfo() {
     }
@@ -35,6 +42,22 @@ public class ColumnInfo {
         this.isAutoIncrement = isAutoIncrement;
     }
 
+    /**
+     * Create column info from result set metadata (1-based column index)
+     */
+    public static ColumnInfo fromMetaData(ResultSetMetaData metaData, int column) throws SQLException {
+        ColumnInfo columnInfo = new ColumnInfo(
+            metaData.getColumnName(column),
+            metaData.getColumnTypeName(column),
+            metaData.getPrecision(column),
+            metaData.isNullable(column) != ResultSetMetaData.columnNoNulls,
+            null,
+            false,
+            metaData.isAutoIncrement(column));
+        columnInfo.setJdbcType(metaData.getColumnType(column));
+        return columnInfo;
+    }
+
     /**
      * Get Java class type for the column data type
      */
@@ -123,6 +146,63 @@ public class ColumnInfo {
                lowerDataType.contains("clob");
     }
 
+    /**
+     * Check if this is a national text column (two bytes per character on SQL Server)
+     */
+    public boolean isUnicode() {
+        switch (jdbcType) {
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.NCLOB:
+                return true;
+            default:
+                break;
+        }
+        String lowerDataType = dataType.toLowerCase();
+        return lowerDataType.startsWith("nchar") ||
+               lowerDataType.startsWith("nvarchar") ||
+               lowerDataType.equals("ntext");
+    }
+
+    /**
+     * Check if this is a binary column
+     */
+    public boolean isBinary() {
+        String lowerDataType = dataType.toLowerCase();
+        return lowerDataType.contains("binary") ||
+               lowerDataType.contains("blob") ||
+               lowerDataType.contains("bytea") ||
+               lowerDataType.equals("image");
+    }
+
+    /**
+     * Check if values of this column can be large (text, nvarchar(max), varbinary(max), LOBs).
+     * Such columns are fetched truncated in previews.
+     */
+    public boolean isLargeValue() {
+        switch (jdbcType) {
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.BLOB:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.LONGVARBINARY:
+            case Types.SQLXML:
+                return true;
+            default:
+                break;
+        }
+
+        String lowerDataType = dataType.toLowerCase();
+        if (lowerDataType.contains("text") || lowerDataType.contains("lob") ||
+            lowerDataType.equals("image") || lowerDataType.equals("xml")) {
+            return true;
+        }
+        // (max) columns report a size of about 2^30 or 2^31 - 1, unbounded ones 0 or less
+        return (isText() || isBinary()) && (size <= 0 || size > LARGE_VALUE_SIZE);
+    }
+
     /**
      * Check if this is a boolean column
      */
@@ -150,6 +230,9 @@ public class ColumnInfo {
         if (isAutoIncrement) {
             sb.append(" [AUTO]");
         }
+        if (indexed && !isPrimaryKey) {
+            sb.append(" [IDX]");
+        }
         if (!nullable) {
             sb.append(" [NOT NULL]");
         }
@@ -221,6 +304,25 @@ public class ColumnInfo {
         isAutoIncrement = autoIncrement;
     }
 
+    /**
+     * Whether the column is the leading key column of an index (seekable)
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    public void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+    }
+
+    public int getJdbcType() {
+        return jdbcType;
+    }
+
+    public void setJdbcType(int jdbcType) {
+        this.jdbcType = jdbcType;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,491 @@
+package de.reports.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed storage for the values of a single result column.
+ * Numeric columns are kept in primitive arrays, text columns are dictionary
+ * encoded unless they are mostly distinct, and NULLs are tracked in a bitmap
+ * instead of boxed null entries.
+ */
+public abstract class ColumnVector {
+    private static final int INITIAL_CAPACITY = 64;
+
+    protected final BitSet nulls = new BitSet();
+    protected int size = 0;
+
+    /**
+     * Create the best fitting vector for a column of the given JDBC type
+     */
+    public static ColumnVector forJdbcType(int jdbcType) {
+        switch (jdbcType) {
+            case Types.INTEGER:
+                return new IntVector(false);
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return new IntVector(true);
+            case Types.BIGINT:
+                return new LongVector();
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return new DoubleVector(false);
+            case Types.REAL:
+                return new DoubleVector(true);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringVector();
+            default:
+                return new ObjectVector();
+        }
+    }
+
+    /**
+     * Append the value of the given (1-based) column of the current ResultSet row
+     */
+    public abstract void append(ResultSet resultSet, int columnIndex) throws SQLException;
+
+    /**
+     * Append an already materialized value
+     */
+    public abstract void appendValue(Object value);
+
+    /**
+     * Get the value at the row as the object the JDBC driver would have returned
+     */
+    public abstract Object get(int row);
+
+    /**
+     * Approximate heap footprint of this vector in bytes
+     */
+    public abstract long estimateMemoryBytes();
+
+    protected abstract void ensureCapacity(int capacity);
+
+    /**
+     * Release state that is only needed while appending; called once the result is built
+     */
+    public void seal() {
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public BitSet getNulls() {
+        return nulls;
+    }
+
+    protected void appendNull() {
+        ensureCapacity(size + 1);
+        nulls.set(size);
+        size++;
+    }
+
+    protected static int grow(int current, int required) {
+        int capacity = Math.max(current, INITIAL_CAPACITY);
+        while (capacity < required) {
+            capacity = capacity + (capacity >> 1);
+        }
+        return capacity;
+    }
+
+    /**
+     * INTEGER, SMALLINT and TINYINT columns
+     */
+    public static class IntVector extends ColumnVector {
+        private final boolean shortValues;
+        private int[] values = new int[0];
+
+        public IntVector(boolean shortValues) {
+            this.shortValues = shortValues;
+        }
+
+        @Override
+        public void append(ResultSet resultSet, int columnIndex) throws SQLException {
+            int value = resultSet.getInt(columnIndex);
+            if (resultSet.wasNull()) {
+                appendNull();
+            } else {
+                appendInt(value);
+            }
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (value == null) {
+                appendNull();
+            } else {
+                appendInt(((Number) value).intValue());
+            }
+        }
+
+        public void appendInt(int value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        public int[] getValues() {
+            return values;
+        }
+
+        @Override
+        public Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return shortValues ? (Object) (short) values[row] : (Object) values[row];
+        }
+
+        @Override
+        public long estimateMemoryBytes() {
+            return 4L * values.length + nulls.size() / 8;
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+    }
+
+    /**
+     * BIGINT columns
+     */
+    public static class LongVector extends ColumnVector {
+        private long[] values = new long[0];
+
+        @Override
+        public void append(ResultSet resultSet, int columnIndex) throws SQLException {
+            long value = resultSet.getLong(columnIndex);
+            if (resultSet.wasNull()) {
+                appendNull();
+            } else {
+                appendLong(value);
+            }
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (value == null) {
+                appendNull();
+            } else {
+                appendLong(((Number) value).longValue());
+            }
+        }
+
+        public void appendLong(long value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        public long[] getValues() {
+            return values;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public long estimateMemoryBytes() {
+            return 8L * values.length + nulls.size() / 8;
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+    }
+
+    /**
+     * FLOAT, DOUBLE and REAL columns
+     */
+    public static class DoubleVector extends ColumnVector {
+        private final boolean floatValues;
+        private double[] values = new double[0];
+
+        public DoubleVector(boolean floatValues) {
+            this.floatValues = floatValues;
+        }
+
+        @Override
+        public void append(ResultSet resultSet, int columnIndex) throws SQLException {
+            double value = resultSet.getDouble(columnIndex);
+            if (resultSet.wasNull()) {
+                appendNull();
+            } else {
+                appendDouble(value);
+            }
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (value == null) {
+                appendNull();
+            } else {
+                appendDouble(((Number) value).doubleValue());
+            }
+        }
+
+        public void appendDouble(double value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        @Override
+        public Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return floatValues ? (Object) (float) values[row] : (Object) values[row];
+        }
+
+        @Override
+        public long estimateMemoryBytes() {
+            return 8L * values.length + nulls.size() / 8;
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+    }
+
+    /**
+     * Text columns. Values are dictionary encoded (every distinct string stored once,
+     * rows hold an int code) unless the first rows turn out to be mostly distinct;
+     * then the vector keeps a plain String per row, which is cheaper for unique columns.
+     */
+    public static class StringVector extends ColumnVector {
+        private static final int DICTIONARY_PROBE_ROWS = 1024;
+        private static final double MAX_DISTINCT_RATIO = 0.5;
+
+        // Only needed while appending; dropped by seal() and rebuilt if appending resumes
+        private Map<String, Integer> codeLookup = new HashMap<>();
+        private String[] dictionary = new String[0];
+        private int dictionarySize = 0;
+        private int[] codes = new int[0];
+        // Plain values once the column left dictionary encoding, otherwise null
+        private String[] values;
+        // Whether the first DICTIONARY_PROBE_ROWS rows were checked for distinct values
+        private boolean probed;
+
+        @Override
+        public void append(ResultSet resultSet, int columnIndex) throws SQLException {
+            appendValue(resultSet.getString(columnIndex));
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (value == null) {
+                appendNull();
+                return;
+            }
+
+            String text = value.toString();
+            if (values != null) {
+                ensureCapacity(size + 1);
+                values[size++] = text;
+                return;
+            }
+
+            if (codeLookup == null) {
+                codeLookup = new HashMap<>(dictionarySize * 2);
+                for (int code = 0; code < dictionarySize; code++) {
+                    codeLookup.put(dictionary[code], code);
+                }
+            }
+            Integer code = codeLookup.get(text);
+            if (code == null) {
+                code = dictionarySize;
+                if (dictionarySize == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, grow(dictionary.length, dictionarySize + 1));
+                }
+                dictionary[dictionarySize++] = text;
+                codeLookup.put(text, code);
+            }
+
+            ensureCapacity(size + 1);
+            codes[size++] = code;
+
+            // Checked on the first value at or past the probe row, which may follow NULL rows
+            if (!probed && size >= DICTIONARY_PROBE_ROWS) {
+                probed = true;
+                if (dictionarySize > size * MAX_DISTINCT_RATIO) {
+                    decodeToValues();
+                }
+            }
+        }
+
+        private void decodeToValues() {
+            String[] plain = new String[codes.length];
+            for (int row = 0; row < size; row++) {
+                if (!isNull(row)) {
+                    plain[row] = dictionary[codes[row]];
+                }
+            }
+            values = plain;
+            codes = null;
+            dictionary = null;
+            dictionarySize = 0;
+            codeLookup = null;
+        }
+
+        @Override
+        public void seal() {
+            codeLookup = null;
+        }
+
+        /**
+         * Whether the rows are stored as dictionary codes (getCodes / getDictionaryValue)
+         * or as plain values (getValues)
+         */
+        public boolean isDictionaryEncoded() {
+            return values == null;
+        }
+
+        /**
+         * Dictionary code of the row, or -1 for NULL
+         */
+        public int getCode(int row) {
+            return isNull(row) ? -1 : codes[row];
+        }
+
+        public String getDictionaryValue(int code) {
+            return dictionary[code];
+        }
+
+        public int getDictionarySize() {
+            return dictionarySize;
+        }
+
+        public int[] getCodes() {
+            return codes;
+        }
+
+        /**
+         * Plain row values; null while the column is dictionary encoded
+         */
+        public String[] getValues() {
+            return values;
+        }
+
+        public String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return values != null ? values[row] : dictionary[codes[row]];
+        }
+
+        @Override
+        public Object get(int row) {
+            return getString(row);
+        }
+
+        @Override
+        public long estimateMemoryBytes() {
+            if (values != null) {
+                long bytes = 8L * values.length + nulls.size() / 8;
+                for (int row = 0; row < size; row++) {
+                    if (values[row] != null) {
+                        bytes += 40 + 2L * values[row].length();
+                    }
+                }
+                return bytes;
+            }
+            long bytes = 4L * codes.length + 8L * dictionary.length + nulls.size() / 8;
+            for (int i = 0; i < dictionarySize; i++) {
+                // String header + backing array, plus the lookup map entry while appending
+                bytes += 40 + 2L * dictionary[i].length() + (codeLookup != null ? 48 : 0);
+            }
+            return bytes;
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (values != null) {
+                if (capacity > values.length) {
+                    values = Arrays.copyOf(values, grow(values.length, capacity));
+                }
+            } else if (capacity > codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+            }
+        }
+    }
+
+    /**
+     * Fallback for types without a primitive representation (dates, decimals, binary)
+     */
+    public static class ObjectVector extends ColumnVector {
+        private Object[] values = new Object[0];
+
+        @Override
+        public void append(ResultSet resultSet, int columnIndex) throws SQLException {
+            appendValue(resultSet.getObject(columnIndex));
+        }
+
+        @Override
+        public void appendValue(Object value) {
+            if (value == null) {
+                appendNull();
+                return;
+            }
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        @Override
+        public Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long estimateMemoryBytes() {
+            // Reference plus a rough guess for the boxed value itself
+            return 8L * values.length + 24L * size;
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+    }
+}
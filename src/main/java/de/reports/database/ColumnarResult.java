@@ -0,0 +1,301 @@
+package de.reports.database;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Column-oriented query result.
+ * Holds one typed ColumnVector per column and a shared schema, instead of a
+ * LinkedHashMap per row. Existing row-based callers read it through
+ * lightweight row views (see getRow / asRowList).
+ */
+public class ColumnarResult {
+    private final List<ColumnInfo> schema;
+    private final List<String> columnNames;
+    private final Map<String, Integer> columnIndexes;
+    // Columns a row view exposes: the first of several columns with the same name (e.g. t.* joins)
+    private final int[] rowColumns;
+    private final ColumnVector[] vectors;
+    private final int rowCount;
+
+    private ColumnarResult(List<ColumnInfo> schema, ColumnVector[] vectors, int rowCount) {
+        this.schema = Collections.unmodifiableList(schema);
+        this.vectors = vectors;
+        this.rowCount = rowCount;
+        for (ColumnVector vector : vectors) {
+            vector.seal();
+        }
+
+        List<String> names = new ArrayList<>(schema.size());
+        Map<String, Integer> indexes = new HashMap<>();
+        int[] distinct = new int[schema.size()];
+        int distinctCount = 0;
+        for (int i = 0; i < schema.size(); i++) {
+            String name = schema.get(i).getName();
+            names.add(name);
+            if (indexes.putIfAbsent(name, i) == null) {
+                distinct[distinctCount++] = i;
+            }
+        }
+        this.columnNames = Collections.unmodifiableList(names);
+        this.columnIndexes = indexes;
+        this.rowColumns = Arrays.copyOf(distinct, distinctCount);
+    }
+
+    /**
+     * Read up to maxRows rows (0 = all) from the result set into columnar form
+     */
+    public static ColumnarResult fromResultSet(ResultSet resultSet, int maxRows) throws SQLException {
+        Builder builder = new Builder(resultSet.getMetaData());
+        while ((maxRows <= 0 || builder.getRowCount() < maxRows) && resultSet.next()) {
+            builder.appendRow(resultSet);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Wrap already filled column vectors (e.g. decoded from a snapshot file)
+     */
+    public static ColumnarResult of(List<ColumnInfo> schema, ColumnVector[] vectors, int rowCount) {
+        return new ColumnarResult(new ArrayList<>(schema), vectors, rowCount);
+    }
+
+    /**
+     * Join results of the same schema (e.g. the batches of a streamed page) into one
+     */
+    public static ColumnarResult concat(List<ColumnarResult> parts) {
+        if (parts.isEmpty()) {
+            return empty();
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        Builder builder = new Builder(parts.get(0).getSchema());
+        Object[] values = new Object[parts.get(0).getColumnCount()];
+        for (ColumnarResult part : parts) {
+            for (int row = 0; row < part.getRowCount(); row++) {
+                for (int c = 0; c < values.length; c++) {
+                    values[c] = part.getValue(row, c);
+                }
+                builder.appendRow(values);
+            }
+        }
+        return builder.build();
+    }
+
+    public static ColumnarResult empty() {
+        return new ColumnarResult(new ArrayList<>(), new ColumnVector[0], 0);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    public List<ColumnInfo> getSchema() {
+        return schema;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Index of the column, or -1 if unknown
+     */
+    public int getColumnIndex(String columnName) {
+        Integer index = columnIndexes.get(columnName);
+        return index != null ? index : -1;
+    }
+
+    public ColumnVector getVector(int columnIndex) {
+        return vectors[columnIndex];
+    }
+
+    public ColumnVector getVector(String columnName) {
+        int index = getColumnIndex(columnName);
+        return index >= 0 ? vectors[index] : null;
+    }
+
+    public Object getValue(int row, int columnIndex) {
+        return vectors[columnIndex].get(row);
+    }
+
+    public boolean isNull(int row, int columnIndex) {
+        return vectors[columnIndex].isNull(row);
+    }
+
+    /**
+     * Read-only map view of a single row
+     */
+    public Map<String, Object> getRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        return new RowView(row);
+    }
+
+    /**
+     * Read-only list of row views for callers that expect List&lt;Map&lt;String, Object&gt;&gt;
+     */
+    public List<Map<String, Object>> asRowList() {
+        return new RowList();
+    }
+
+    /**
+     * Approximate heap footprint of all column vectors in bytes
+     */
+    public long estimateMemoryBytes() {
+        long bytes = 0;
+        for (ColumnVector vector : vectors) {
+            bytes += vector.estimateMemoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Incrementally builds a ColumnarResult row by row
+     */
+    public static class Builder {
+        private final List<ColumnInfo> schema;
+        private final ColumnVector[] vectors;
+        private int rowCount = 0;
+
+        public Builder(ResultSetMetaData metaData) throws SQLException {
+            this(schemaOf(metaData));
+        }
+
+        public Builder(List<ColumnInfo> schema) {
+            this.schema = new ArrayList<>(schema);
+            this.vectors = new ColumnVector[schema.size()];
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = ColumnVector.forJdbcType(schema.get(i).getJdbcType());
+            }
+        }
+
+        private static List<ColumnInfo> schemaOf(ResultSetMetaData metaData) throws SQLException {
+            List<ColumnInfo> schema = new ArrayList<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                schema.add(ColumnInfo.fromMetaData(metaData, i));
+            }
+            return schema;
+        }
+
+        /**
+         * Append the current row of the result set
+         */
+        public void appendRow(ResultSet resultSet) throws SQLException {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i].append(resultSet, i + 1);
+            }
+            rowCount++;
+        }
+
+        /**
+         * Append a row of already materialized values in schema order
+         */
+        public void appendRow(Object[] values) {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i].appendValue(values[i]);
+            }
+            rowCount++;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public List<ColumnInfo> getSchema() {
+            return schema;
+        }
+
+        public ColumnarResult build() {
+            return new ColumnarResult(schema, vectors, rowCount);
+        }
+    }
+
+    private class RowList extends AbstractList<Map<String, Object>> implements RandomAccess {
+        @Override
+        public Map<String, Object> get(int index) {
+            return getRow(index);
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
+    }
+
+    private class RowView extends AbstractMap<String, Object> {
+        private final int row;
+
+        RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer index = columnIndexes.get(key);
+            return index != null ? vectors[index].get(row) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columnIndexes.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return rowColumns.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int column = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < rowColumns.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = rowColumns[column++];
+                            return new SimpleImmutableEntry<>(columnNames.get(current), vectors[current].get(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return rowColumns.length;
+                }
+            };
+        }
+    }
+}
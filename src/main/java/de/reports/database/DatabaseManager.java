@@ -2,22 +2,47 @@ package de.reports.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import de.reports.database.dialect.SqlDialect;
+import de.reports.database.dialect.SqlDialects;
 import de.reports.utils.ConfigManager;
 import de.reports.utils.SecurityUtils;
+import de.reports.utils.TaskScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
+    private static final long PREFETCH_WAIT_MILLIS = 50;
 
     private HikariDataSource dataSource;
     private DatabaseConnectionInfo connectionInfo;
+    private RowCountProvider rowCountProvider;
+    private SchemaCatalog schemaCatalog;
+    private SqlDialect dialect = SqlDialects.forType(null);
+    private LargeValueStrategy largeValueStrategy = newLargeValueStrategy(dialect);
     private boolean isConnected = false;
 
+    // Count queries run next to the page query, prefetches behind them
+    private final Executor countExecutor = TaskScheduler.getInstance()
+        .executor(TaskScheduler.Lane.BACKGROUND, TaskScheduler.Priority.NORMAL);
+    private final Executor prefetchExecutor = TaskScheduler.getInstance()
+        .executor(TaskScheduler.Lane.BACKGROUND, TaskScheduler.Priority.LOW);
+
+    // Loaded pages (LRU within a memory budget) and prefetches still running
+    private final PageCache pageCache = new PageCache(ConfigManager.getInstance().getPageCacheBudgetBytes());
+    private final Map<String, PendingPage> pendingPages = new ConcurrentHashMap<>();
+
     public DatabaseManager() {
         // Constructor
     }
@@ -31,6 +56,8 @@ public class DatabaseManager {
             disconnect();
 
             this.connectionInfo = connInfo;
+            this.dialect = SqlDialects.forType(connInfo.getType());
+            this.largeValueStrategy = newLargeValueStrategy(dialect);
 
             // Configure HikariCP
             HikariConfig config = new HikariConfig();
@@ -57,8 +84,15 @@ public class DatabaseManager {
             config.addDataSourceProperty("cachePrepStmts", "true");
             config.addDataSourceProperty("prepStmtCacheSize", "250");
             config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            if ("sqlserver".equalsIgnoreCase(connInfo.getType())) {
+                // Bind setString as varchar so varchar columns keep their index seeks;
+                // nvarchar parameters are bound explicitly with setNString
+                config.addDataSourceProperty("sendStringParametersAsUnicode", "false");
+            }
 
             dataSource = new HikariDataSource(config);
+            rowCountProvider = new RowCountProvider(dataSource, connInfo.getType());
+            schemaCatalog = new SchemaCatalog(dataSource, connInfo.getType(), configManager.getSchemaCacheTtl());
 
             // Test connection
             try (Connection testConnection = dataSource.getConnection()) {
@@ -95,6 +129,9 @@ public class DatabaseManager {
             logger.error("Error while disconnecting from database", e);
         } finally {
             dataSource = null;
+            rowCountProvider = null;
+            schemaCatalog = null;
+            pageCache.clear();
             isConnected = false;
         }
     }
@@ -137,24 +174,15 @@ public class DatabaseManager {
             return tableNames;
         }
 
-        try (Connection connection = dataSource.getConnection()) {
-            DatabaseMetaData metaData = connection.getMetaData();
-
-            // Get only user tables (exclude views and system objects)
-            String[] tableTypes = {"TABLE"};
-            try (ResultSet tables = metaData.getTables(null, null, "%", tableTypes)) {
-                while (tables.next()) {
-                    String tableName = tables.getString("TABLE_NAME");
-                    String tableType = tables.getString("TABLE_TYPE");
-
-                    // Skip system tables
-                    if (!isSystemTable(tableName, connectionInfo.getType())) {
-                        tableNames.add(tableName);
-                    }
+        try {
+            // Served from the cached schema catalog
+            for (String tableName : schemaCatalog.getTableNames()) {
+                // Skip system tables
+                if (!isSystemTable(tableName, connectionInfo.getType())) {
+                    tableNames.add(tableName);
                 }
             }
 
-            Collections.sort(tableNames);
             logger.info("Found {} tables/views", tableNames.size());
 
         } catch (SQLException e) {
@@ -175,22 +203,8 @@ public class DatabaseManager {
             return columns;
         }
 
-        try (Connection connection = dataSource.getConnection()) {
-            DatabaseMetaData metaData = connection.getMetaData();
-
-            try (ResultSet resultSet = metaData.getColumns(null, null, tableName, "%")) {
-                while (resultSet.next()) {
-                    String columnName = resultSet.getString("COLUMN_NAME");
-                    String dataType = resultSet.getString("TYPE_NAME");
-                    int columnSize = resultSet.getInt("COLUMN_SIZE");
-                    boolean nullable = resultSet.getInt("NULLABLE") == DatabaseMetaData.columnNullable;
-                    String defaultValue = resultSet.getString("COLUMN_DEF");
-
-                    ColumnInfo columnInfo = new ColumnInfo(columnName, dataType, columnSize, nullable, defaultValue);
-                    columns.add(columnInfo);
-                }
-            }
-
+        try {
+            columns.addAll(schemaCatalog.getColumns(tableName));
             logger.info("Found {} columns for table {}", columns.size(), tableName);
 
         } catch (SQLException e) {
@@ -201,114 +215,69 @@ public class DatabaseManager {
     }
 
     /**
-     * Get sample data from table
+     * Get exact record count for a table (SELECT COUNT(*), cached by the row count provider);
+     * -1 if the count failed
      */
-    public List<Map<String, Object>> getSampleData(String tableName, int maxRows) {
-        List<Map<String, Object>> data = new ArrayList<>();
-
+    public long getRecordCount(String tableName) {
         if (!isConnected || dataSource == null) {
             logger.warn("Not connected to database");
-            return data;
+            return -1;
         }
 
-        String query = buildSampleDataQuery(tableName, maxRows);
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query);
-             ResultSet resultSet = statement.executeQuery()) {
-
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            while (resultSet.next() && data.size() < maxRows) {
-                Map<String, Object> row = new LinkedHashMap<>();
-
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object value = resultSet.getObject(i);
-                    row.put(columnName, value);
-                }
-
-                data.add(row);
-            }
-
-            logger.info("Retrieved {} sample rows from table {}", data.size(), tableName);
+        return rowCountProvider.getExactCount(tableName);
+    }
 
-        } catch (SQLException e) {
-            logger.error("Failed to get sample data from table: {}", tableName, e);
+    /**
+     * Forget the cached exact record count of a table, so the next instant count is fresh
+     */
+    public void invalidateRecordCount(String tableName) {
+        if (rowCountProvider != null) {
+            rowCountProvider.invalidate(tableName);
         }
-
-        return data;
     }
 
     /**
-     * Get record count for a table
+     * Get an instant record count from table metadata; may be approximate
      */
-    public long getRecordCount(String tableName) {
+    public RowCountProvider.RowCount getInstantRecordCount(String tableName) {
         if (!isConnected || dataSource == null) {
             logger.warn("Not connected to database");
-            return 0;
-        }
-
-        String query = "SELECT COUNT(*) FROM " + tableName;
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query);
-             ResultSet resultSet = statement.executeQuery()) {
-
-            if (resultSet.next()) {
-                long count = resultSet.getLong(1);
-                logger.info("Table {} has {} records", tableName, count);
-                return count;
-            }
-
-        } catch (SQLException e) {
-            logger.error("Failed to get record count for table: {}", tableName, e);
+            return new RowCountProvider.RowCount(0, true);
         }
 
-        return 0;
+        return rowCountProvider.getInstantCount(tableName);
     }
 
     /**
      * Execute query and return ResultSet data
      */
     public QueryResult executeQuery(String query) {
+        return executeQuery(new ParameterizedQuery(query));
+    }
+
+    /**
+     * Execute a query with bind parameters and return ResultSet data
+     */
+    public QueryResult executeQuery(ParameterizedQuery query) {
         if (!isConnected || dataSource == null) {
             logger.warn("Not connected to database");
             return new QueryResult(false, "Not connected to database", null, null);
         }
 
+        long startTime = System.currentTimeMillis();
+
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query);
-             ResultSet resultSet = statement.executeQuery()) {
+             PreparedStatement statement = connection.prepareStatement(query.getSql())) {
 
-            List<Map<String, Object>> data = new ArrayList<>();
-            List<String> columnNames = new ArrayList<>();
+            query.bind(statement);
 
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ColumnarResult data = ColumnarResult.fromResultSet(resultSet, 0);
 
-            // Get column names
-            for (int i = 1; i <= columnCount; i++) {
-                columnNames.add(metaData.getColumnName(i));
+                logger.info("Query executed successfully, returned {} rows", data.getRowCount());
+                return new QueryResult(true, "Success", data, System.currentTimeMillis() - startTime);
             }
 
-            // Get data
-            while (resultSet.next()) {
-                Map<String, Object> row = new LinkedHashMap<>();
-
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object value = resultSet.getObject(i);
-                    row.put(columnName, value);
-                }
-
-                data.add(row);
-            }
-
-            logger.info("Query executed successfully, returned {} rows", data.size());
-            return new QueryResult(true, "Success", columnNames, data);
-
         } catch (SQLException e) {
             String errorMsg = "Failed to execute query: " + e.getMessage();
             logger.error(errorMsg, e);
@@ -316,6 +285,40 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Open a forward-only streaming cursor for the query.
+     * The caller owns the cursor and must close it; closing early cancels the statement.
+     */
+    public QueryCursor openCursor(String query, int fetchSize) throws SQLException {
+        return openCursor(new ParameterizedQuery(query), fetchSize);
+    }
+
+    /**
+     * Open a forward-only streaming cursor for a query with bind parameters
+     */
+    public QueryCursor openCursor(ParameterizedQuery query, int fetchSize) throws SQLException {
+        if (!isConnected || dataSource == null) {
+            throw new SQLException("Not connected to database");
+        }
+
+        Connection connection = dataSource.getConnection();
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(query.getSql(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize > 0 ? fetchSize : ConfigManager.getInstance().getFetchSize());
+            query.bind(statement);
+            ResultSet resultSet = statement.executeQuery();
+            return new QueryCursor(connection, statement, resultSet);
+        } catch (SQLException e) {
+            if (statement != null) {
+                statement.close();
+            }
+            connection.close();
+            throw e;
+        }
+    }
+
     // Helper methods
 
     private boolean isSystemTable(String tableName, String dbType) {
@@ -350,18 +353,6 @@ public class DatabaseManager {
         return false;
     }
 
-    private String buildSampleDataQuery(String tableName, int maxRows) {
-        String dbType = connectionInfo.getType().toLowerCase();
-
-        // Only support SQL Server now
-        if ("sqlserver".equals(dbType)) {
-            return "SELECT TOP " + maxRows + " * FROM " + tableName;
-        }
-
-        // Fallback for any other database type
-        return "SELECT * FROM " + tableName;
-    }
-
     // Getters
     public boolean isConnected() {
         return isConnected && dataSource != null && !dataSource.isClosed();
@@ -371,145 +362,597 @@ public class DatabaseManager {
         return connectionInfo;
     }
 
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
     public DataSource getDataSource() {
         return dataSource;
     }
 
+    public RowCountProvider getRowCountProvider() {
+        return rowCountProvider;
+    }
+
+    public SchemaCatalog getSchemaCatalog() {
+        return schemaCatalog;
+    }
+
     /**
-     * Get filtered data count from table
+     * Drop cached metadata (schema catalog and exact row counts), e.g. on manual refresh
      */
-    public long getFilteredRecordCount(String tableName, String whereClause) {
+    public void refreshMetadata() {
+        if (schemaCatalog != null) {
+            schemaCatalog.invalidate();
+        }
+        if (rowCountProvider != null) {
+            rowCountProvider.clear();
+        }
+        pageCache.clear();
+    }
+
+    /**
+     * Build a parameterized WHERE clause (without the keyword) for the filter conditions.
+     * Bind types are taken from the table's column metadata.
+     */
+    public ParameterizedQuery buildFilter(String tableName, List<FilterCondition> conditions) {
+        if (conditions == null || conditions.isEmpty()) {
+            return ParameterizedQuery.empty();
+        }
+
+        String dbType = connectionInfo != null ? connectionInfo.getType() : null;
+        return new QueryBuilder(tableName, dbType)
+            .columnTypes(getTableColumns(tableName))
+            .where(conditions)
+            .buildWhereClause();
+    }
+
+    /**
+     * Count the rows matching the pagination's filter next to the page queries. The count
+     * statement is registered with the handle, so cancelling it aborts the count on the
+     * server. A count is kept with the pagination and reused for every page turn of the
+     * same filter; a failed count is reported as -1 (unknown).
+     */
+    public CompletableFuture<Long> countFilteredRecords(KeysetPagination pagination, QueryHandle handle) {
         if (!isConnected || dataSource == null) {
             logger.warn("Not connected to database");
-            return 0;
+            return CompletableFuture.completedFuture(-1L);
         }
 
-        String query = "SELECT COUNT(*) FROM " + tableName;
-        if (whereClause != null && !whereClause.trim().isEmpty()) {
-            // Remove "WHERE" prefix if exists
-            String cleanWhereClause = whereClause.trim();
-            if (cleanWhereClause.toUpperCase().startsWith("WHERE ")) {
-                cleanWhereClause = cleanWhereClause.substring(6);
-            }
-            query += " WHERE " + cleanWhereClause;
+        long keptCount = pagination.getTotalCount();
+        if (keptCount >= 0) {
+            return CompletableFuture.completedFuture(keptCount);
         }
 
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                long count = queryFilteredCount(pagination.getTableName(), pagination.getWhere(), handle);
+                pagination.recordTotalCount(count);
+                return count;
+            } catch (SQLException e) {
+                if (handle.isCancelled()) {
+                    logger.debug("Filtered count on table {} was cancelled", pagination.getTableName());
+                } else {
+                    logger.error("Failed to get filtered record count for table: {} with filter: {}",
+                        pagination.getTableName(), pagination.getWhere(), e);
+                }
+                return -1L;
+            }
+        }, countExecutor);
+    }
+
+    private long queryFilteredCount(String tableName, ParameterizedQuery where, QueryHandle handle)
+            throws SQLException {
+        String query = dialect.countQuery(tableName, cleanWhereClause(where.getSql()));
+
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query);
-             ResultSet resultSet = statement.executeQuery()) {
+             PreparedStatement statement = connection.prepareStatement(query)) {
+
+            where.bind(statement);
+            handle.register(statement);
 
-            if (resultSet.next()) {
-                long count = resultSet.getLong(1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                long count = resultSet.next() ? resultSet.getLong(1) : 0;
                 logger.info("Filtered count for table {} with filter '{}': {} records",
-                    tableName, whereClause, count);
+                    tableName, where, count);
                 return count;
+            } finally {
+                handle.unregister(statement);
             }
+        }
+    }
 
-        } catch (SQLException e) {
-            logger.error("Failed to get filtered record count for table: {} with filter: {}",
-                tableName, whereClause, e);
+    private String buildFilteredQuery(String tableName, String selectList, String whereClause,
+                                      int offset, int maxRows) {
+        StringBuilder query = new StringBuilder("SELECT ").append(selectList).append(" FROM ").append(tableName);
+
+        // Add WHERE clause
+        String cleanWhereClause = cleanWhereClause(whereClause);
+        if (!cleanWhereClause.isEmpty()) {
+            query.append(" WHERE ").append(cleanWhereClause);
         }
 
-        return 0;
+        // Add pagination (the dialect adds an ORDER BY where OFFSET requires one)
+        return dialect.paginate(query.toString(), null, offset, maxRows);
     }
 
     /**
-     * Get filtered sample data from table with smart loading
+     * Find a unique, non-nullable key usable for keyset pagination.
+     * Prefers the primary key, then the first unique index without nullable columns.
+     * Returns an empty list if the table has no usable key.
      */
-    public FilteredDataResult getFilteredData(String tableName, String whereClause,
-                                            int offset, int maxRows) {
+    public List<String> findUniqueKeyColumns(String tableName) {
         if (!isConnected || dataSource == null) {
             logger.warn("Not connected to database");
-            return new FilteredDataResult(false, "Not connected to database", 0, null);
+            return new ArrayList<>();
         }
 
         try {
-            // First get total count
-            long totalCount = getFilteredRecordCount(tableName, whereClause);
+            List<String> keyColumns = schemaCatalog.findUniqueKey(tableName);
+            if (keyColumns.isEmpty()) {
+                logger.info("No usable unique key for table {}, falling back to OFFSET paging", tableName);
+            } else {
+                logger.info("Using key {} for keyset pagination of {}", keyColumns, tableName);
+            }
+            return new ArrayList<>(keyColumns);
+
+        } catch (SQLException e) {
+            logger.error("Failed to determine unique key for table: {}", tableName, e);
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Indexes of a table from the schema catalog, primary key first
+     */
+    public List<IndexInfo> getTableIndexes(String tableName) {
+        if (!isConnected || schemaCatalog == null) {
+            return Collections.emptyList();
+        }
+
+        try {
+            return schemaCatalog.getIndexes(tableName);
+        } catch (SQLException e) {
+            logger.error("Failed to get indexes for table: {}", tableName, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Fetch one page using keyset pagination (OFFSET fallback when no key is available)
+     */
+    public QueryResult fetchPage(KeysetPagination pagination, int page) {
+        return fetchPage(pagination, page, new QueryHandle());
+    }
+
+    /**
+     * Fetch one page; the running statement can be aborted through the handle
+     */
+    public QueryResult fetchPage(KeysetPagination pagination, int page, QueryHandle handle) {
+        return fetchPage(pagination, page, handle, null);
+    }
+
+    /**
+     * Fetch one page and hand its rows to the listener in batches while they arrive.
+     * Cached pages are delivered as one batch; the returned result holds the whole page.
+     */
+    public QueryResult fetchPage(KeysetPagination pagination, int page, QueryHandle handle,
+                                 PageBatchListener listener) {
+        if (!isConnected || dataSource == null) {
+            logger.warn("Not connected to database");
+            return new QueryResult(false, "Not connected to database", null, null);
+        }
+
+        String cacheKey = pageCacheKey(pagination, page);
+        ColumnarResult cached = pageCache.get(cacheKey);
+        if (cached != null) {
+            pagination.recordPage(page, cached);
+            logger.debug("Page {} of {} served from cache", page, pagination.getTableName());
+            if (listener != null) {
+                listener.onBatch(cached);
+            }
+            return new QueryResult(true, "Success", cached, 0);
+        }
+
+        PendingPage pending = pendingPages.get(cacheKey);
+        if (pending != null) {
+            if (pending.claim()) {
+                // Prefetch still queued behind background work - load the page here instead
+                try {
+                    QueryResult result = loadPage(pagination, page, handle, listener);
+                    pending.result.complete(result);
+                    return result;
+                } catch (RuntimeException e) {
+                    pending.result.complete(new QueryResult(false, e.getMessage(), null, null));
+                    throw e;
+                } finally {
+                    pendingPages.remove(cacheKey, pending);
+                }
+            }
+
+            // The prefetch query is already running - wait for it instead of querying twice
+            QueryResult prefetched = awaitPrefetch(pending, handle);
+            if (prefetched == null) {
+                logger.debug("Waiting for page {} of {} was cancelled", page, pagination.getTableName());
+                return new QueryResult(false, "Query cancelled", null, null);
+            }
+            if (prefetched.isSuccess()) {
+                if (listener != null) {
+                    listener.onBatch(prefetched.getColumnarData());
+                }
+                return prefetched;
+            }
+        }
+
+        return loadPage(pagination, page, handle, listener);
+    }
+
+    /**
+     * Result of a running prefetch, or null if the handle was cancelled while waiting
+     */
+    private static QueryResult awaitPrefetch(PendingPage pending, QueryHandle handle) {
+        while (!handle.isCancelled()) {
+            try {
+                return pending.result.get(PREFETCH_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check the handle again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return new QueryResult(false, e.getCause().getMessage(), null, null);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prefetch of one page; whoever claims it first (the prefetch task or an interactive
+     * request for the same page) runs the query, the other one uses its result
+     */
+    private static class PendingPage {
+        final CompletableFuture<QueryResult> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Receives the rows of a page while it is being read; called on the loading thread
+     */
+    public interface PageBatchListener {
+        void onBatch(ColumnarResult batch);
+    }
+
+    /**
+     * Load the pages before and after the given page into the page cache in the background.
+     * The next page is skipped if no row followed the loaded page (end of data).
+     */
+    public void prefetchAdjacentPages(KeysetPagination pagination, int page, int loadedRows) {
+        if (!isConnected || dataSource == null) {
+            return;
+        }
+        if (pagination.hasNextPage(page, loadedRows)) {
+            prefetchPage(pagination, page + 1);
+        }
+        if (page > 1) {
+            prefetchPage(pagination, page - 1);
+        }
+    }
+
+    private void prefetchPage(KeysetPagination pagination, int page) {
+        String cacheKey = pageCacheKey(pagination, page);
+        if (pageCache.contains(cacheKey)) {
+            return;
+        }
+
+        PendingPage pending = new PendingPage();
+        if (pendingPages.putIfAbsent(cacheKey, pending) != null) {
+            return; // already being loaded
+        }
+
+        prefetchExecutor.execute(() -> {
+            if (!pending.claim()) {
+                return; // requested interactively meanwhile and loaded there
+            }
+            try {
+                pending.result.complete(loadPage(pagination, page, new QueryHandle(), null));
+            } catch (RuntimeException e) {
+                pending.result.complete(new QueryResult(false, e.getMessage(), null, null));
+            } finally {
+                pendingPages.remove(cacheKey, pending);
+            }
+        });
+    }
+
+    /**
+     * Drop the cached pages of a table, so a newly opened view reads current data
+     */
+    public void invalidatePages(String tableName) {
+        pageCache.invalidateTable(tableName);
+    }
+
+    private String pageCacheKey(KeysetPagination pagination, int page) {
+        return PageCache.key(pagination.getTableName(), pagination.buildSelectList(), pagination.getWhere(),
+            pagination.buildKeyOrder(false), pagination.getPageSize(), page);
+    }
+
+    private QueryResult loadPage(KeysetPagination pagination, int page, QueryHandle handle,
+                                 PageBatchListener listener) {
+        KeysetPagination.PageRequest request = pagination.planPage(page);
+        List<ParameterizedQuery.Parameter> parameters = new ArrayList<>();
+        List<String> truncated = new ArrayList<>();
+        String query = buildPageQuery(pagination, request, parameters, truncated);
+        long startTime = System.currentTimeMillis();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+
+            // Filter values come first in the statement, the seek anchor after them
+            int index = pagination.getWhere().bind(statement, 1);
+            new ParameterizedQuery("", parameters).bind(statement, index);
+            int batchRows = listener != null
+                ? Math.max(1, ConfigManager.getInstance().getPreviewBatchRows())
+                : pagination.getPageSize();
+            // Small first fetch, so the first batch is on the wire after one round trip
+            statement.setFetchSize(Math.min(batchRows, pagination.getPageSize() + 1));
+            handle.register(statement);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ColumnarResult data = readPage(resultSet, pagination.getPageSize(), batchRows, truncated, listener);
+                // The look-ahead row only tells whether another page follows; a page read
+                // backwards was reached from its successor
+                boolean hasNextPage = request.getDirection() == KeysetPagination.SeekDirection.BEFORE
+                    || resultSet.next();
+                pagination.recordPage(page, data, hasNextPage);
+                pageCache.put(pageCacheKey(pagination, page), data);
+
+                logger.info("Loaded page {} of {} via {} ({} rows)",
+                    page, pagination.getTableName(), request.getDirection(), data.getRowCount());
+                return new QueryResult(true, "Success", data, System.currentTimeMillis() - startTime);
+            } finally {
+                handle.unregister(statement);
+            }
 
-            // Build paginated query
-            String query = buildFilteredQuery(tableName, whereClause, offset, maxRows);
+        } catch (SQLException e) {
+            if (handle.isCancelled()) {
+                logger.debug("Loading page {} of {} was cancelled", page, pagination.getTableName());
+                return new QueryResult(false, "Query cancelled", null, null);
+            }
+            String errorMsg = "Failed to load page " + page + " of table: " + pagination.getTableName();
+            logger.error(errorMsg, e);
+            return new QueryResult(false, errorMsg + " - " + e.getMessage(), null, null);
+        }
+    }
 
-            try (Connection connection = dataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(query);
-                 ResultSet resultSet = statement.executeQuery()) {
+    /**
+     * Read up to pageSize rows in batches of batchRows; each batch is collapsed and
+     * passed to the listener (if any) before the next one is read
+     */
+    private ColumnarResult readPage(ResultSet resultSet, int pageSize, int batchRows, List<String> truncated,
+                                    PageBatchListener listener) throws SQLException {
+        List<ColumnarResult> batches = new ArrayList<>();
+        ColumnarResult.Builder batch = new ColumnarResult.Builder(resultSet.getMetaData());
+        List<ColumnInfo> schema = batch.getSchema();
+        int rows = 0;
+
+        while (rows < pageSize && resultSet.next()) {
+            batch.appendRow(resultSet);
+            rows++;
+            if (batch.getRowCount() >= batchRows && rows < pageSize) {
+                batches.add(deliverBatch(batch.build(), truncated, listener));
+                batch = new ColumnarResult.Builder(schema);
+            }
+        }
+        if (batch.getRowCount() > 0 || batches.isEmpty()) {
+            batches.add(deliverBatch(batch.build(), truncated, listener));
+        }
+        return ColumnarResult.concat(batches);
+    }
 
-                List<Map<String, Object>> data = new ArrayList<>();
-                ResultSetMetaData metaData = resultSet.getMetaData();
-                int columnCount = metaData.getColumnCount();
+    private static ColumnarResult deliverBatch(ColumnarResult batch, List<String> truncated,
+                                               PageBatchListener listener) {
+        ColumnarResult collapsed = LargeValueStrategy.collapse(batch, truncated);
+        if (listener != null && collapsed.getRowCount() > 0) {
+            listener.onBatch(collapsed);
+        }
+        return collapsed;
+    }
 
-                while (resultSet.next() && data.size() < maxRows) {
-                    Map<String, Object> row = new LinkedHashMap<>();
+    private String buildPageQuery(KeysetPagination pagination, KeysetPagination.PageRequest request,
+                                  List<ParameterizedQuery.Parameter> parameters, List<String> truncated) {
+        String whereClause = cleanWhereClause(pagination.getWhereClause());
+        int pageSize = pagination.getPageSize();
+        int offset = (request.getPage() - 1) * pageSize;
 
-                    for (int i = 1; i <= columnCount; i++) {
-                        String columnName = metaData.getColumnName(i);
-                        Object value = resultSet.getObject(i);
-                        row.put(columnName, value);
-                    }
+        String selectList = buildPreviewSelectList(pagination.getTableName(),
+            pagination.getSelectColumns(), pagination.getKeyColumns(), truncated);
 
-                    data.add(row);
+        if (!pagination.isKeysetAvailable()) {
+            // One extra row as look-ahead for the next page
+            return buildFilteredQuery(pagination.getTableName(), selectList, whereClause, offset, pageSize + 1);
+        }
+
+        StringBuilder query = new StringBuilder("SELECT ").append(selectList)
+            .append(" FROM ").append(pagination.getTableName());
+        KeysetPagination.SeekDirection direction = request.getDirection();
+        boolean seek = direction == KeysetPagination.SeekDirection.AFTER
+            || direction == KeysetPagination.SeekDirection.BEFORE;
+
+        if (!whereClause.isEmpty() || seek) {
+            query.append(" WHERE ");
+            if (!whereClause.isEmpty()) {
+                query.append("(").append(whereClause).append(")");
+                if (seek) {
+                    query.append(" AND ");
                 }
+            }
+            if (seek) {
+                ParameterizedQuery.Parameter[] anchor = typedKey(pagination.getTableName(),
+                    pagination.getKeyColumns(), request.getAnchor());
+                query.append(pagination.buildSeekPredicate(dialect, direction, anchor, parameters));
+            }
+        }
+
+        // Forward reads fetch one extra row as look-ahead for the next page
+        boolean descending = direction == KeysetPagination.SeekDirection.BEFORE;
+        String pageQuery = dialect.paginate(query.toString(), pagination.buildKeyOrder(descending),
+            direction == KeysetPagination.SeekDirection.OFFSET ? offset : 0, descending ? pageSize : pageSize + 1);
+
+        if (descending) {
+            // Seeking backwards reads the page in reverse key order - flip it back on the server
+            return "SELECT * FROM (" + pageQuery + ") keyset_page ORDER BY " + pagination.buildKeyOrder(false);
+        }
+        return pageQuery;
+    }
+
+    /**
+     * SELECT list for preview queries: large text / binary columns are truncated on the
+     * server (see LargeValueStrategy), everything else is selected as is
+     *
+     * @param keyColumns unique key of the table, looked up when null
+     * @param truncated  receives the truncated columns (see LargeValueStrategy.collapse)
+     */
+    private String buildPreviewSelectList(String tableName, List<String> columns, List<String> keyColumns,
+                                          List<String> truncated) {
+        try {
+            List<ColumnInfo> tableColumns = schemaCatalog.getColumns(tableName);
+            if (largeValueStrategy.hasLargeValues(tableColumns, columns)) {
+                List<String> keys = keyColumns != null ? keyColumns : schemaCatalog.findUniqueKey(tableName);
+                return largeValueStrategy.buildSelectList(tableColumns, columns, keys, truncated);
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not check table {} for large columns, selecting them in full", tableName, e);
+        }
+        return buildSelectList(columns);
+    }
+
+    private static LargeValueStrategy newLargeValueStrategy(SqlDialect dialect) {
+        return new LargeValueStrategy(dialect, ConfigManager.getInstance().getLargeValuePreviewLength());
+    }
+
+    /**
+     * Load the complete value of a large column for one row, identified by the table's unique key.
+     * Used when a truncated preview cell is opened.
+     */
+    public FullValueResult loadFullValue(String tableName, String columnName, Map<String, Object> row) {
+        if (!isConnected || dataSource == null) {
+            logger.warn("Not connected to database");
+            return new FullValueResult(false, "Not connected to database", null);
+        }
 
-                logger.info("Retrieved {} filtered rows from table {} (total: {})",
-                    data.size(), tableName, totalCount);
+        List<String> keyColumns = findUniqueKeyColumns(tableName);
+        if (keyColumns.isEmpty()) {
+            return new FullValueResult(false, "Table " + tableName + " has no unique key", null);
+        }
 
-                return new FilteredDataResult(true, "Success", totalCount, data);
+        StringBuilder query = new StringBuilder("SELECT ").append(columnName)
+            .append(" FROM ").append(tableName).append(" WHERE ");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                query.append(" AND ");
+            }
+            query.append(keyColumns.get(i)).append(" = ?");
+        }
 
+        Object[] keyValues = new Object[keyColumns.size()];
+        for (int i = 0; i < keyColumns.size(); i++) {
+            keyValues[i] = row.get(keyColumns.get(i));
+            if (keyValues[i] == null) {
+                return new FullValueResult(false, "Key column " + keyColumns.get(i) + " missing in row", null);
+            }
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query.toString())) {
+
+            new ParameterizedQuery(query.toString(),
+                Arrays.asList(typedKey(tableName, keyColumns, keyValues))).bind(statement);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return new FullValueResult(false, "Row no longer exists", null);
+                }
+                Object value = resultSet.getObject(1);
+                if (value instanceof Clob) {
+                    Clob clob = (Clob) value;
+                    value = clob.getSubString(1, (int) clob.length());
+                } else if (value instanceof Blob) {
+                    Blob blob = (Blob) value;
+                    value = blob.getBytes(1, (int) blob.length());
+                }
+                return new FullValueResult(true, "Success", value);
             }
 
         } catch (SQLException e) {
-            String errorMsg = "Failed to get filtered data from table: " + tableName;
+            String errorMsg = "Failed to load " + columnName + " from table: " + tableName;
             logger.error(errorMsg, e);
-            return new FilteredDataResult(false, errorMsg, 0, null);
+            return new FullValueResult(false, errorMsg + " - " + e.getMessage(), null);
         }
     }
 
-    private String buildFilteredQuery(String tableName, String whereClause, int offset, int maxRows) {
-        StringBuilder query = new StringBuilder("SELECT * FROM ").append(tableName);
+    /**
+     * Key values as parameters typed like their columns in the schema catalog, so they are
+     * bound like filter values (nvarchar keys with setNString, see ParameterizedQuery).
+     * Text of a column with unknown type is bound as nvarchar, which never loses characters.
+     */
+    private ParameterizedQuery.Parameter[] typedKey(String tableName, List<String> keyColumns, Object[] values) {
+        Map<String, Integer> columnTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (ColumnInfo column : getTableColumns(tableName)) {
+            columnTypes.put(column.getName(), column.getJdbcType());
+        }
 
-        // Add WHERE clause
-        if (whereClause != null && !whereClause.trim().isEmpty()) {
-            String cleanWhereClause = whereClause.trim();
-            if (cleanWhereClause.toUpperCase().startsWith("WHERE ")) {
-                cleanWhereClause = cleanWhereClause.substring(6);
+        ParameterizedQuery.Parameter[] parameters = new ParameterizedQuery.Parameter[keyColumns.size()];
+        for (int i = 0; i < parameters.length; i++) {
+            Integer jdbcType = columnTypes.get(keyColumns.get(i));
+            if (jdbcType == null || jdbcType == Types.OTHER) {
+                jdbcType = values[i] instanceof String ? Types.NVARCHAR : Types.OTHER;
             }
-            query.append(" WHERE ").append(cleanWhereClause);
+            parameters[i] = new ParameterizedQuery.Parameter(values[i], jdbcType);
         }
+        return parameters;
+    }
 
-        // Add pagination (SQL Server style)
-        String dbType = connectionInfo.getType().toLowerCase();
-        if ("sqlserver".equals(dbType)) {
-            query.append(" ORDER BY (SELECT NULL) OFFSET ").append(offset)
-                 .append(" ROWS FETCH NEXT ").append(maxRows).append(" ROWS ONLY");
-        } else {
-            // Fallback for other databases
-            query.append(" LIMIT ").append(maxRows).append(" OFFSET ").append(offset);
+    /**
+     * SELECT list for a projection; * when no columns are given
+     */
+    private static String buildSelectList(List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return "*";
         }
+        return String.join(", ", columns);
+    }
 
-        return query.toString();
+    private static String cleanWhereClause(String whereClause) {
+        if (whereClause == null || whereClause.trim().isEmpty()) {
+            return "";
+        }
+        String cleanWhereClause = whereClause.trim();
+        if (cleanWhereClause.toUpperCase().startsWith("WHERE ")) {
+            cleanWhereClause = cleanWhereClause.substring(6);
+        }
+        return cleanWhereClause;
     }
 
     /**
-     * Result class for filtered data with metadata
+     * Result class for a value loaded on demand
      */
-    public static class FilteredDataResult {
+    public static class FullValueResult {
         private final boolean success;
         private final String message;
-        private final long totalCount;
-        private final List<Map<String, Object>> data;
+        private final Object value;
 
-        public FilteredDataResult(boolean success, String message, long totalCount,
-                                List<Map<String, Object>> data) {
+        public FullValueResult(boolean success, String message, Object value) {
             this.success = success;
             this.message = message;
-            this.totalCount = totalCount;
-            this.data = data;
+            this.value = value;
         }
 
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
-        public long getTotalCount() { return totalCount; }
-        public List<Map<String, Object>> getData() { return data; }
-        public int getCurrentCount() { return data != null ? data.size() : 0; }
+        public Object getValue() { return value; }
     }
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ public class FilterCondition {
         EQUALS("=", "Gleich"),
         NOT_EQUALS("!=", "Ungleich"),
         CONTAINS("LIKE", "Enthält"),
+        NOT_CONTAINS("NOT LIKE", "Enthält nicht"),
         STARTS_WITH("STARTS_WITH", "Beginnt mit"),
         ENDS_WITH("ENDS_WITH", "Endet mit"),
         GREATER_THAN(">", "Größer als"),
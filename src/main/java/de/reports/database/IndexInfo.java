@@ -0,0 +1,43 @@
+package de.reports.database;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An index of a table: name, uniqueness and key columns in key order
+ */
+public class IndexInfo {
+    private final String name;
+    private final boolean primaryKey;
+    private final boolean unique;
+    private final List<String> columns;
+
+    public IndexInfo(String name, boolean primaryKey, boolean unique, List<String> columns) {
+        this.name = name;
+        this.primaryKey = primaryKey;
+        this.unique = unique || primaryKey;
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * First key column - the only one a seek on this index can start with
+     */
+    public String getLeadingColumn() {
+        return columns.isEmpty() ? null : columns.get(0);
+    }
+
+    public boolean hasLeadingColumn(String columnName) {
+        String leading = getLeadingColumn();
+        return leading != null && leading.equalsIgnoreCase(columnName);
+    }
+
+    public String getName() { return name; }
+    public boolean isPrimaryKey() { return primaryKey; }
+    public boolean isUnique() { return unique; }
+    public List<String> getColumns() { return columns; }
+
+    @Override
+    public String toString() {
+        return name + (primaryKey ? " [PK] " : unique ? " [UNIQUE] " : " ") + columns;
+    }
+}
@@ -0,0 +1,246 @@
+package de.reports.database;
+
+import de.reports.database.dialect.SqlDialect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset (seek) pagination state for one table / filter combination.
+ *
+ * Remembers the first and last key of every page that has been loaded, so
+ * the neighbouring pages can be fetched with "WHERE key &gt; ?" / "key &lt; ?"
+ * instead of OFFSET, which makes page turns independent of the page depth.
+ * Without a usable unique key it falls back to OFFSET paging. Pages are read
+ * with one row of look-ahead, so whether a next page exists is known without
+ * counting; a total that was counted is kept with the pagination, so a new
+ * filter starts without one.
+ * An optional projection limits the fetched columns; the key columns are
+ * always fetched as well because the page boundaries are read from them.
+ */
+public class KeysetPagination {
+    private final String tableName;
+    private final ParameterizedQuery where;
+    private final List<String> keyColumns;
+    private final List<String> projection;
+    private final int pageSize;
+
+    private final Map<Integer, Object[]> firstKeys = new HashMap<>();
+    private final Map<Integer, Object[]> lastKeys = new HashMap<>();
+    private final Map<Integer, Boolean> nextPageExists = new HashMap<>();
+    private long totalCount = -1;
+
+    public KeysetPagination(String tableName, String whereClause, List<String> keyColumns, int pageSize) {
+        this(tableName, new ParameterizedQuery(whereClause), keyColumns, pageSize);
+    }
+
+    public KeysetPagination(String tableName, ParameterizedQuery where, List<String> keyColumns, int pageSize) {
+        this(tableName, where, keyColumns, pageSize, null);
+    }
+
+    public KeysetPagination(String tableName, ParameterizedQuery where, List<String> keyColumns, int pageSize,
+                            List<String> projection) {
+        this.tableName = tableName;
+        this.projection = projection != null ? new ArrayList<>(projection) : new ArrayList<>();
+        this.where = where != null ? where : ParameterizedQuery.empty();
+        this.keyColumns = keyColumns != null ? new ArrayList<>(keyColumns) : new ArrayList<>();
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Whether a unique key is available for seek pagination
+     */
+    public boolean isKeysetAvailable() {
+        return !keyColumns.isEmpty();
+    }
+
+    /**
+     * Describe how the given page should be fetched
+     */
+    public synchronized PageRequest planPage(int page) {
+        if (!isKeysetAvailable()) {
+            return new PageRequest(page, SeekDirection.OFFSET, null);
+        }
+        if (page <= 1) {
+            return new PageRequest(1, SeekDirection.FIRST, null);
+        }
+
+        Object[] previousLast = lastKeys.get(page - 1);
+        if (previousLast != null) {
+            return new PageRequest(page, SeekDirection.AFTER, previousLast);
+        }
+
+        Object[] nextFirst = firstKeys.get(page + 1);
+        if (nextFirst != null) {
+            return new PageRequest(page, SeekDirection.BEFORE, nextFirst);
+        }
+
+        // No neighbouring anchor known (e.g. direct jump) - ordered OFFSET once,
+        // later neighbours can seek from this page's boundaries
+        return new PageRequest(page, SeekDirection.OFFSET, null);
+    }
+
+    /**
+     * Remember the boundary keys of a loaded page
+     */
+    public synchronized void recordPage(int page, ColumnarResult rows) {
+        if (!isKeysetAvailable() || rows == null || rows.getRowCount() == 0) {
+            return;
+        }
+
+        firstKeys.put(page, keyOf(rows, 0));
+        lastKeys.put(page, keyOf(rows, rows.getRowCount() - 1));
+    }
+
+    /**
+     * Remember the boundary keys of a loaded page and whether a row followed it
+     */
+    public synchronized void recordPage(int page, ColumnarResult rows, boolean hasNextPage) {
+        recordPage(page, rows);
+        nextPageExists.put(page, hasNextPage);
+    }
+
+    /**
+     * Whether another page follows the given one; when the page was served from
+     * cache without look-ahead, a full page is assumed to have a successor
+     */
+    public synchronized boolean hasNextPage(int page, int loadedRows) {
+        Boolean hasNext = nextPageExists.get(page);
+        return hasNext != null ? hasNext : loadedRows >= pageSize;
+    }
+
+    /**
+     * Remember the counted number of rows matching the filter
+     */
+    public synchronized void recordTotalCount(long count) {
+        totalCount = count;
+    }
+
+    /**
+     * Counted number of rows matching the filter, or -1 if not counted yet
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Forget all page boundaries and the count (e.g. after data changes)
+     */
+    public synchronized void reset() {
+        firstKeys.clear();
+        lastKeys.clear();
+        nextPageExists.clear();
+        totalCount = -1;
+    }
+
+    private Object[] keyOf(ColumnarResult rows, int row) {
+        Object[] key = new Object[keyColumns.size()];
+        for (int i = 0; i < key.length; i++) {
+            ColumnVector vector = rows.getVector(keyColumns.get(i));
+            key[i] = vector != null ? vector.get(row) : null;
+        }
+        return key;
+    }
+
+    /**
+     * Build the seek predicate for the key columns in the dialect's preferred form
+     * and collect its parameters
+     */
+    <T> String buildSeekPredicate(SqlDialect dialect, SeekDirection direction, T[] anchor, List<T> parameters) {
+        return dialect.seekPredicate(keyColumns, direction == SeekDirection.AFTER, anchor, parameters);
+    }
+
+    /**
+     * SELECT list: * without projection, otherwise the projected columns plus missing key columns
+     */
+    public String buildSelectList() {
+        List<String> columns = getSelectColumns();
+        return columns.isEmpty() ? "*" : String.join(", ", columns);
+    }
+
+    /**
+     * Columns to fetch: empty (all columns) without projection, otherwise the projection plus missing key columns
+     */
+    public List<String> getSelectColumns() {
+        if (projection.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> columns = new ArrayList<>(projection);
+        for (String keyColumn : keyColumns) {
+            boolean present = columns.stream().anyMatch(column -> column.equalsIgnoreCase(keyColumn));
+            if (!present) {
+                columns.add(keyColumn);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * ORDER BY list over the key columns
+     */
+    String buildKeyOrder(boolean descending) {
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                order.append(", ");
+            }
+            order.append(keyColumns.get(i)).append(descending ? " DESC" : " ASC");
+        }
+        return order.toString();
+    }
+
+    // Getters
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getWhereClause() {
+        return where.getSql();
+    }
+
+    public ParameterizedQuery getWhere() {
+        return where;
+    }
+
+    public List<String> getKeyColumns() {
+        return Collections.unmodifiableList(keyColumns);
+    }
+
+    public List<String> getProjection() {
+        return Collections.unmodifiableList(projection);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public enum SeekDirection {
+        FIRST,
+        AFTER,
+        BEFORE,
+        OFFSET
+    }
+
+    /**
+     * How a single page is fetched: from the start, seeking after / before an anchor key, or by OFFSET
+     */
+    public static class PageRequest {
+        private final int page;
+        private final SeekDirection direction;
+        private final Object[] anchor;
+
+        PageRequest(int page, SeekDirection direction, Object[] anchor) {
+            this.page = page;
+            this.direction = direction;
+            this.anchor = anchor;
+        }
+
+        public int getPage() { return page; }
+        public SeekDirection getDirection() { return direction; }
+        public Object[] getAnchor() { return anchor; }
+    }
+}
@@ -0,0 +1,169 @@
+package de.reports.database;
+
+import de.reports.database.dialect.SqlDialect;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps large text and binary columns out of preview pages.
+ *
+ * Columns flagged by ColumnInfo.isLargeValue() are selected as a server-side
+ * prefix plus their length; collapse() turns the two result columns back into
+ * a single column of TruncatedValue, for the columns the select list truncated
+ * only. Key columns are always selected with them so the full value of a cell
+ * can be loaded later.
+ */
+public class LargeValueStrategy {
+    static final String LENGTH_SUFFIX = "__len";
+
+    private final SqlDialect dialect;
+    private final int prefixLength;
+
+    public LargeValueStrategy(SqlDialect dialect, int prefixLength) {
+        this.dialect = dialect;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Whether any of the selected columns (all if none are given) is a large value column
+     */
+    public boolean hasLargeValues(List<ColumnInfo> tableColumns, List<String> columns) {
+        for (ColumnInfo column : selectedColumns(tableColumns, columns)) {
+            if (column.isLargeValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * SELECT list with large columns truncated, or null if the selection has no large columns
+     *
+     * @param tableColumns all columns of the table
+     * @param columns      selected columns, all columns if null or empty
+     * @param keyColumns   unique key columns added to the list when missing
+     * @param truncated    receives the names of the truncated columns, to be passed to collapse()
+     */
+    public String buildSelectList(List<ColumnInfo> tableColumns, List<String> columns, List<String> keyColumns,
+                                  List<String> truncated) {
+        if (!hasLargeValues(tableColumns, columns)) {
+            return null;
+        }
+
+        List<String> names = new ArrayList<>();
+        List<String> expressions = new ArrayList<>();
+        for (ColumnInfo column : selectedColumns(tableColumns, columns)) {
+            addColumn(column, names, expressions, truncated);
+        }
+        for (String keyColumn : keyColumns) {
+            if (names.stream().noneMatch(name -> name.equalsIgnoreCase(keyColumn))) {
+                names.add(keyColumn);
+                expressions.add(keyColumn);
+            }
+        }
+        return String.join(", ", expressions);
+    }
+
+    private void addColumn(ColumnInfo column, List<String> names, List<String> expressions, List<String> truncated) {
+        String name = column.getName();
+        names.add(name);
+        if (column.isLargeValue()) {
+            boolean binary = column.isBinary();
+            expressions.add(dialect.valuePrefix(name, prefixLength, binary) + " AS " + name);
+            expressions.add(dialect.valueLength(name, binary, column.isUnicode()) + " AS " + name + LENGTH_SUFFIX);
+            truncated.add(name);
+        } else {
+            expressions.add(name);
+        }
+    }
+
+    private static List<ColumnInfo> selectedColumns(List<ColumnInfo> tableColumns, List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return tableColumns;
+        }
+
+        List<ColumnInfo> selected = new ArrayList<>();
+        for (String name : columns) {
+            ColumnInfo column = tableColumns.stream()
+                .filter(candidate -> candidate.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElse(new ColumnInfo(name, "unknown", 0, true, null));
+            selected.add(column);
+        }
+        return selected;
+    }
+
+    /**
+     * Replace the prefix / length column pair of every truncated column by one column of
+     * TruncatedValue; other columns are kept as they are, whatever their names
+     */
+    public static ColumnarResult collapse(ColumnarResult result, List<String> truncated) {
+        if (truncated.isEmpty()) {
+            return result;
+        }
+        List<ColumnInfo> schema = result.getSchema();
+        boolean[] lengthColumn = new boolean[schema.size()];
+        int[] lengthOf = new int[schema.size()];
+        boolean found = false;
+
+        for (int i = 0; i < schema.size(); i++) {
+            lengthOf[i] = -1;
+        }
+        for (int i = 0; i < schema.size(); i++) {
+            String name = schema.get(i).getName();
+            if (name.toLowerCase().endsWith(LENGTH_SUFFIX)) {
+                String valueName = name.substring(0, name.length() - LENGTH_SUFFIX.length());
+                int valueIndex = truncated.stream().anyMatch(column -> column.equalsIgnoreCase(valueName))
+                    ? result.getColumnIndex(valueName)
+                    : -1;
+                if (valueIndex >= 0) {
+                    lengthColumn[i] = true;
+                    lengthOf[valueIndex] = i;
+                    found = true;
+                }
+            }
+        }
+        if (!found) {
+            return result;
+        }
+
+        List<ColumnInfo> collapsedSchema = new ArrayList<>();
+        List<Integer> sourceColumns = new ArrayList<>();
+        for (int i = 0; i < schema.size(); i++) {
+            if (lengthColumn[i]) {
+                continue;
+            }
+            ColumnInfo column = schema.get(i);
+            if (lengthOf[i] >= 0) {
+                ColumnInfo collapsed = new ColumnInfo(column.getName(), column.getDataType(), column.getSize(),
+                    column.isNullable(), null);
+                collapsed.setJdbcType(Types.JAVA_OBJECT);
+                column = collapsed;
+            }
+            collapsedSchema.add(column);
+            sourceColumns.add(i);
+        }
+
+        ColumnarResult.Builder builder = new ColumnarResult.Builder(collapsedSchema);
+        Object[] values = new Object[collapsedSchema.size()];
+        for (int row = 0; row < result.getRowCount(); row++) {
+            for (int c = 0; c < values.length; c++) {
+                int source = sourceColumns.get(c);
+                Object value = result.getValue(row, source);
+                if (lengthOf[source] >= 0 && value != null) {
+                    Object length = result.getValue(row, lengthOf[source]);
+                    value = new TruncatedValue(value, length instanceof Number ? ((Number) length).longValue() : -1);
+                }
+                values[c] = value;
+            }
+            builder.appendRow(values);
+        }
+        return builder.build();
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+}
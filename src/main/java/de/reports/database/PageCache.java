@@ -0,0 +1,112 @@
+package de.reports.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of loaded result pages, bounded by an estimated memory budget.
+ *
+ * Pages are keyed by table, projected columns, filter (including bound
+ * values), sort order, page size and page number. When the estimated size of
+ * all cached pages exceeds the budget the least recently used pages are evicted.
+ */
+public class PageCache {
+    private static final Logger logger = LoggerFactory.getLogger(PageCache.class);
+
+    private final long memoryBudgetBytes;
+    private final LinkedHashMap<String, Entry> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes = 0;
+
+    public PageCache(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Build the cache key of a page
+     */
+    public static String key(String tableName, String selectList, ParameterizedQuery where,
+                             String sortOrder, int pageSize, int page) {
+        return tableName.toLowerCase() + "\u0000"
+            + (selectList != null ? selectList : "*") + "\u0000"
+            + (where != null ? where.getCacheKey() : "") + "\u0000"
+            + (sortOrder != null ? sortOrder : "") + "\u0000"
+            + pageSize + "\u0000"
+            + page;
+    }
+
+    public synchronized ColumnarResult get(String key) {
+        Entry entry = pages.get(key);
+        return entry != null ? entry.data : null;
+    }
+
+    public synchronized boolean contains(String key) {
+        return pages.containsKey(key);
+    }
+
+    public synchronized void put(String key, ColumnarResult data) {
+        long bytes = data.estimateMemoryBytes();
+        if (bytes > memoryBudgetBytes) {
+            logger.debug("Page {} ({} bytes) exceeds cache budget, not cached", key, bytes);
+            return;
+        }
+
+        Entry previous = pages.put(key, new Entry(data, bytes));
+        if (previous != null) {
+            usedBytes -= previous.bytes;
+        }
+        usedBytes += bytes;
+        evictOverBudget();
+    }
+
+    /**
+     * Drop all cached pages of a table (any filter, sort or page size)
+     */
+    public synchronized void invalidateTable(String tableName) {
+        String prefix = tableName.toLowerCase() + "\u0000";
+        Iterator<Map.Entry<String, Entry>> iterator = pages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                usedBytes -= entry.getValue().bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void evictOverBudget() {
+        Iterator<Map.Entry<String, Entry>> iterator = pages.entrySet().iterator();
+        while (usedBytes > memoryBudgetBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            usedBytes -= eldest.getValue().bytes;
+            iterator.remove();
+            logger.debug("Evicted page {} from cache", eldest.getKey());
+        }
+    }
+
+    private static class Entry {
+        private final ColumnarResult data;
+        private final long bytes;
+
+        Entry(ColumnarResult data, long bytes) {
+            this.data = data;
+            this.bytes = bytes;
+        }
+    }
+}
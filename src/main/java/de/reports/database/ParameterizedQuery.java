@@ -0,0 +1,188 @@
+package de.reports.database;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL text with ? placeholders and the typed values bound to them.
+ *
+ * Filter values are never written into the SQL text, so every filter of the
+ * same shape produces the same statement and SQL Server can reuse its plan.
+ * Each parameter carries the JDBC type of the column it is compared with:
+ * varchar columns are bound with setString (sent as varchar when the driver
+ * runs with sendStringParametersAsUnicode=false), nvarchar columns with
+ * setNString, so the comparison never forces a conversion of the column.
+ */
+public class ParameterizedQuery {
+    private static final ParameterizedQuery EMPTY = new ParameterizedQuery("");
+
+    private final String sql;
+    private final List<Parameter> parameters;
+
+    public ParameterizedQuery(String sql) {
+        this(sql, Collections.emptyList());
+    }
+
+    public ParameterizedQuery(String sql, List<Parameter> parameters) {
+        this.sql = sql != null ? sql : "";
+        this.parameters = Collections.unmodifiableList(new ArrayList<>(parameters));
+    }
+
+    public static ParameterizedQuery empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Bind all parameters starting at index 1
+     */
+    public void bind(PreparedStatement statement) throws SQLException {
+        bind(statement, 1);
+    }
+
+    /**
+     * Bind all parameters starting at the given index; returns the next free index
+     */
+    public int bind(PreparedStatement statement, int startIndex) throws SQLException {
+        int index = startIndex;
+        for (Parameter parameter : parameters) {
+            parameter.bind(statement, index++);
+        }
+        return index;
+    }
+
+    /**
+     * Key identifying this query including its values (for result caches)
+     */
+    public String getCacheKey() {
+        if (parameters.isEmpty()) {
+            return sql;
+        }
+        StringBuilder key = new StringBuilder(sql);
+        for (Parameter parameter : parameters) {
+            key.append('|').append(parameter.getValue());
+        }
+        return key.toString();
+    }
+
+    public boolean isEmpty() {
+        return sql.trim().isEmpty();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Parameter> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return parameters.isEmpty() ? sql : sql + " " + parameters;
+    }
+
+    /**
+     * A single bind value with its JDBC type
+     */
+    public static class Parameter {
+        private final Object value;
+        private final int jdbcType;
+
+        public Parameter(Object value, int jdbcType) {
+            this.value = value;
+            this.jdbcType = jdbcType;
+        }
+
+        /**
+         * Convert filter text to the Java type matching the column.
+         * Text that does not parse is bound as varchar and left to the database to reject.
+         */
+        public static Parameter fromText(String text, int jdbcType) {
+            if (text == null) {
+                return new Parameter(null, jdbcType);
+            }
+
+            String trimmed = text.trim();
+            try {
+                switch (jdbcType) {
+                    case Types.TINYINT:
+                    case Types.SMALLINT:
+                    case Types.INTEGER:
+                        return new Parameter(Integer.valueOf(trimmed), jdbcType);
+                    case Types.BIGINT:
+                        return new Parameter(Long.valueOf(trimmed), jdbcType);
+                    case Types.DECIMAL:
+                    case Types.NUMERIC:
+                        return new Parameter(new BigDecimal(trimmed.replace(',', '.')), jdbcType);
+                    case Types.REAL:
+                    case Types.FLOAT:
+                    case Types.DOUBLE:
+                        return new Parameter(Double.valueOf(trimmed.replace(',', '.')), jdbcType);
+                    case Types.BIT:
+                    case Types.BOOLEAN:
+                        return new Parameter("1".equals(trimmed) || Boolean.parseBoolean(trimmed), jdbcType);
+                    case Types.DATE:
+                        return new Parameter(Date.valueOf(trimmed), jdbcType);
+                    case Types.TIMESTAMP:
+                        return new Parameter(trimmed.length() == 10
+                            ? new Timestamp(Date.valueOf(trimmed).getTime())
+                            : Timestamp.valueOf(trimmed), jdbcType);
+                    case Types.CHAR:
+                    case Types.VARCHAR:
+                    case Types.LONGVARCHAR:
+                    case Types.NCHAR:
+                    case Types.NVARCHAR:
+                    case Types.LONGNVARCHAR:
+                        return new Parameter(text, jdbcType);
+                    default:
+                        return new Parameter(text, Types.VARCHAR);
+                }
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException included
+                return new Parameter(text, Types.VARCHAR);
+            }
+        }
+
+        void bind(PreparedStatement statement, int index) throws SQLException {
+            if (value == null) {
+                statement.setNull(index, jdbcType);
+                return;
+            }
+
+            switch (jdbcType) {
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                    statement.setString(index, value.toString());
+                    break;
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    statement.setNString(index, value.toString());
+                    break;
+                case Types.OTHER:
+                    // Type unknown - left to the driver
+                    statement.setObject(index, value);
+                    break;
+                default:
+                    statement.setObject(index, value, jdbcType);
+                    break;
+            }
+        }
+
+        public Object getValue() { return value; }
+        public int getJdbcType() { return jdbcType; }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+}
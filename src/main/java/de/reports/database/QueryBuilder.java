@@ -1,11 +1,15 @@
 package de.reports.database;
 
-import org.apache.commons.lang3.StringUtils;
+import de.reports.database.dialect.SqlDialect;
+import de.reports.database.dialect.SqlDialects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class QueryBuilder {
     private static final Logger logger = LoggerFactory.getLogger(QueryBuilder.class);
@@ -15,12 +19,13 @@ public class QueryBuilder {
     private List<FilterCondition> filterConditions;
     private List<SortOrder> sortOrders;
     private List<String> groupByColumns;
-    private String dbType;
+    private SqlDialect dialect;
     private int limitRows = 0;
+    private Map<String, Integer> columnTypes;
 
     public QueryBuilder(String tableName, String dbType) {
         this.tableName = tableName;
-        this.dbType = dbType != null ? dbType.toLowerCase() : "mysql";
+        this.dialect = SqlDialects.forType(dbType != null ? dbType.toLowerCase() : "mysql");
     }
 
     public QueryBuilder selectColumns(List<String> columns) {
@@ -48,8 +53,22 @@ public class QueryBuilder {
         return this;
     }
 
-    public String build() {
+    /**
+     * Column metadata used to type the bind parameters of the filter values
+     */
+    public QueryBuilder columnTypes(List<ColumnInfo> columns) {
+        this.columnTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (columns != null) {
+            for (ColumnInfo column : columns) {
+                columnTypes.put(column.getName(), column.getJdbcType());
+            }
+        }
+        return this;
+    }
+
+    public ParameterizedQuery build() {
         StringBuilder query = new StringBuilder("SELECT ");
+        List<ParameterizedQuery.Parameter> parameters = new ArrayList<>();
 
         // SELECT clause
         if (selectedColumns == null || selectedColumns.isEmpty()) {
@@ -62,86 +81,161 @@ public class QueryBuilder {
         query.append(" FROM ").append(tableName);
 
         // WHERE clause
+        appendWhereClause(query, parameters);
+
+        // GROUP BY clause
+        appendGroupByClause(query);
+
+        // ORDER BY and row limit (database specific)
+        String orderBy = buildOrderByList();
+        String finalQuery = limitRows > 0
+            ? dialect.limit(query.toString(), orderBy, limitRows)
+            : query.toString() + (orderBy != null ? " ORDER BY " + orderBy : "");
+
+        logger.debug("Generated query: {}", finalQuery);
+        return new ParameterizedQuery(finalQuery, parameters);
+    }
+
+    /**
+     * Only the filter conditions (without the WHERE keyword), empty if there are none
+     */
+    public ParameterizedQuery buildWhereClause() {
+        List<ParameterizedQuery.Parameter> parameters = new ArrayList<>();
+        StringBuilder where = new StringBuilder();
+        appendFilterConditions(where, parameters);
+        return new ParameterizedQuery(where.toString(), parameters);
+    }
+
+    private void appendWhereClause(StringBuilder query, List<ParameterizedQuery.Parameter> parameters) {
         if (filterConditions != null && !filterConditions.isEmpty()) {
             query.append(" WHERE ");
-            for (int i = 0; i < filterConditions.size(); i++) {
+            appendFilterConditions(query, parameters);
+        }
+    }
+
+    /**
+     * Conditions joined with AND unless a condition is marked OR; AND binds tighter,
+     * so each AND chain is bracketed when the chains are ORed (the grouping
+     * LocalFilter.compile uses as well)
+     */
+    private void appendFilterConditions(StringBuilder query, List<ParameterizedQuery.Parameter> parameters) {
+        if (filterConditions == null || filterConditions.isEmpty()) {
+            return;
+        }
+
+        List<List<FilterCondition>> chains = new ArrayList<>();
+        List<FilterCondition> chain = new ArrayList<>();
+        for (int i = 0; i < filterConditions.size(); i++) {
+            FilterCondition condition = filterConditions.get(i);
+            if (i > 0 && condition.getLogicalOperator() == FilterCondition.LogicalOperator.OR) {
+                chains.add(chain);
+                chain = new ArrayList<>();
+            }
+            chain.add(condition);
+        }
+        chains.add(chain);
+
+        boolean bracket = chains.size() > 1;
+        for (int c = 0; c < chains.size(); c++) {
+            if (c > 0) {
+                query.append(" OR ");
+            }
+            if (bracket) {
+                query.append("(");
+            }
+            List<FilterCondition> conditions = chains.get(c);
+            for (int i = 0; i < conditions.size(); i++) {
                 if (i > 0) {
                     query.append(" AND ");
                 }
-                query.append(buildFilterCondition(filterConditions.get(i)));
+                query.append(buildFilterCondition(conditions.get(i), parameters));
+            }
+            if (bracket) {
+                query.append(")");
             }
         }
+    }
 
-        // GROUP BY clause
+    private void appendGroupByClause(StringBuilder query) {
         if (groupByColumns != null && !groupByColumns.isEmpty()) {
             query.append(" GROUP BY ");
             query.append(String.join(", ", groupByColumns));
         }
+    }
 
-        // ORDER BY clause
-        if (sortOrders != null && !sortOrders.isEmpty()) {
-            query.append(" ORDER BY ");
-            for (int i = 0; i < sortOrders.size(); i++) {
-                if (i > 0) {
-                    query.append(", ");
-                }
-                SortOrder sortOrder = sortOrders.get(i);
-                query.append(sortOrder.getColumnName())
-                     .append(" ")
-                     .append(sortOrder.getDirection());
-            }
+    private String buildOrderByList() {
+        if (sortOrders == null || sortOrders.isEmpty()) {
+            return null;
         }
 
-        // LIMIT clause (database specific)
-        if (limitRows > 0) {
-            query.append(buildLimitClause(limitRows));
+        StringBuilder orderBy = new StringBuilder();
+        for (int i = 0; i < sortOrders.size(); i++) {
+            if (i > 0) {
+                orderBy.append(", ");
+            }
+            SortOrder sortOrder = sortOrders.get(i);
+            orderBy.append(sortOrder.getColumnName())
+                   .append(" ")
+                   .append(sortOrder.getDirection());
         }
-
-        String finalQuery = query.toString();
-        logger.debug("Generated query: {}", finalQuery);
-        return finalQuery;
+        return orderBy.toString();
     }
 
-    private String buildFilterCondition(FilterCondition condition) {
+    private String buildFilterCondition(FilterCondition condition, List<ParameterizedQuery.Parameter> parameters) {
         String column = condition.getColumnName();
         String operator = condition.getOperator();
         String value = condition.getValue();
+        int jdbcType = resolveJdbcType(condition);
 
         switch (operator.toUpperCase()) {
             case "EQUALS":
             case "=":
-                return column + " = '" + escapeValue(value) + "'";
+                parameters.add(ParameterizedQuery.Parameter.fromText(value, jdbcType));
+                return column + " = ?";
 
             case "NOT_EQUALS":
             case "!=":
             case "<>":
-                return column + " != '" + escapeValue(value) + "'";
+                parameters.add(ParameterizedQuery.Parameter.fromText(value, jdbcType));
+                return column + " != ?";
 
             case "CONTAINS":
             case "LIKE":
-                return column + " LIKE '%" + escapeValue(value) + "%'";
+                parameters.add(likeParameter("%" + nullToEmpty(value) + "%", jdbcType));
+                return column + " LIKE ?";
+
+            case "NOT_CONTAINS":
+            case "NOT LIKE":
+                parameters.add(likeParameter("%" + nullToEmpty(value) + "%", jdbcType));
+                return column + " NOT LIKE ?";
 
             case "STARTS_WITH":
-                return column + " LIKE '" + escapeValue(value) + "%'";
+                parameters.add(likeParameter(nullToEmpty(value) + "%", jdbcType));
+                return column + " LIKE ?";
 
             case "ENDS_WITH":
-                return column + " LIKE '%" + escapeValue(value) + "'";
+                parameters.add(likeParameter("%" + nullToEmpty(value), jdbcType));
+                return column + " LIKE ?";
 
             case "GREATER_THAN":
             case ">":
-                return column + " > " + formatValue(value, condition.getDataType());
+                parameters.add(ParameterizedQuery.Parameter.fromText(value, jdbcType));
+                return column + " > ?";
 
             case "GREATER_THAN_OR_EQUAL":
             case ">=":
-                return column + " >= " + formatValue(value, condition.getDataType());
+                parameters.add(ParameterizedQuery.Parameter.fromText(value, jdbcType));
+                return column + " >= ?";
 
             case "LESS_THAN":
             case "<":
-                return column + " < " + formatValue(value, condition.getDataType());
+                parameters.add(ParameterizedQuery.Parameter.fromText(value, jdbcType));
+                return column + " < ?";
 
             case "LESS_THAN_OR_EQUAL":
             case "<=":
-                return column + " <= " + formatValue(value, condition.getDataType());
+                parameters.add(ParameterizedQuery.Parameter.fromText(value, jdbcType));
+                return column + " <= ?";
 
             case "IS_NULL":
                 return column + " IS NULL";
@@ -150,166 +244,120 @@ public class QueryBuilder {
                 return column + " IS NOT NULL";
 
             case "IN":
-                return column + " IN (" + formatInValues(value) + ")";
+                return column + " IN (" + buildInPlaceholders(value, jdbcType, parameters) + ")";
 
             case "NOT_IN":
-                return column + " NOT IN (" + formatInValues(value) + ")";
+                return column + " NOT IN (" + buildInPlaceholders(value, jdbcType, parameters) + ")";
 
             case "BETWEEN":
-                String[] betweenValues = value.split(",");
+                String[] betweenValues = nullToEmpty(value).split(",");
                 if (betweenValues.length == 2) {
-                    return column + " BETWEEN " + formatValue(betweenValues[0].trim(), condition.getDataType()) +
-                           " AND " + formatValue(betweenValues[1].trim(), condition.getDataType());
+                    parameters.add(ParameterizedQuery.Parameter.fromText(betweenValues[0].trim(), jdbcType));
+                    parameters.add(ParameterizedQuery.Parameter.fromText(betweenValues[1].trim(), jdbcType));
+                    return column + " BETWEEN ? AND ?";
                 }
                 break;
 
             default:
                 logger.warn("Unknown operator: {}", operator);
-                return column + " = '" + escapeValue(value) + "'";
-        }
-
-        return column + " = '" + escapeValue(value) + "'";
-    }
-
-    private String formatValue(String value, String dataType) {
-        if (value == null || value.trim().isEmpty()) {
-            return "NULL";
-        }
-
-        value = value.trim();
-
-        // For numeric types, don't add quotes
-        if (dataType != null) {
-            String lowerDataType = dataType.toLowerCase();
-            if (lowerDataType.contains("int") ||
-                lowerDataType.contains("decimal") ||
-                lowerDataType.contains("numeric") ||
-                lowerDataType.contains("float") ||
-                lowerDataType.contains("double") ||
-                lowerDataType.contains("real")) {
-                return value;
-            }
+                break;
         }
 
-        // For other types, add quotes and escape
-        return "'" + escapeValue(value) + "'";
+        parameters.add(ParameterizedQuery.Parameter.fromText(value, jdbcType));
+        return column + " = ?";
     }
 
-    private String formatInValues(String value) {
+    private String buildInPlaceholders(String value, int jdbcType, List<ParameterizedQuery.Parameter> parameters) {
         if (value == null || value.trim().isEmpty()) {
             return "NULL";
         }
 
         String[] values = value.split(",");
-        StringBuilder formatted = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
 
         for (int i = 0; i < values.length; i++) {
             if (i > 0) {
-                formatted.append(", ");
+                placeholders.append(", ");
             }
-            formatted.append("'").append(escapeValue(values[i].trim())).append("'");
+            placeholders.append("?");
+            parameters.add(ParameterizedQuery.Parameter.fromText(values[i].trim(), jdbcType));
         }
 
-        return formatted.toString();
+        return placeholders.toString();
     }
 
-    private String escapeValue(String value) {
-        if (value == null) {
-            return "";
-        }
-        return value.replace("'", "''");
+    /**
+     * LIKE patterns are always text; keep the column's char/nchar flavour
+     */
+    private ParameterizedQuery.Parameter likeParameter(String pattern, int jdbcType) {
+        boolean unicode = jdbcType == Types.NCHAR || jdbcType == Types.NVARCHAR || jdbcType == Types.LONGNVARCHAR;
+        return new ParameterizedQuery.Parameter(pattern, unicode ? Types.NVARCHAR : Types.VARCHAR);
     }
 
-    private String buildLimitClause(int rows) {
-        switch (dbType) {
-            case "mysql":
-            case "postgresql":
-                return " LIMIT " + rows;
-
-            case "sqlserver":
-                // For SQL Server, we need to modify the query structure
-                // This is a simplified approach
-                return "";
+    /**
+     * JDBC type of the filtered column: from the column metadata if known,
+     * otherwise derived from the condition's type name
+     */
+    private int resolveJdbcType(FilterCondition condition) {
+        if (columnTypes != null) {
+            Integer jdbcType = columnTypes.get(condition.getColumnName());
+            if (jdbcType != null && jdbcType != Types.OTHER) {
+                return jdbcType;
+            }
+        }
 
-            case "oracle":
-                // For Oracle, we need to modify the query structure
-                // This is a simplified approach
-                return "";
+        String dataType = condition.getDataType();
+        if (dataType == null) {
+            return Types.VARCHAR;
+        }
 
-            default:
-                return " LIMIT " + rows;
+        String lowerDataType = dataType.toLowerCase();
+        if (lowerDataType.startsWith("nvarchar") || lowerDataType.startsWith("nchar") || lowerDataType.equals("ntext")) {
+            return Types.NVARCHAR;
+        }
+        if (lowerDataType.contains("bigint")) {
+            return Types.BIGINT;
+        }
+        if (lowerDataType.contains("int")) {
+            return Types.INTEGER;
+        }
+        if (lowerDataType.contains("decimal") || lowerDataType.contains("numeric") || lowerDataType.contains("money")) {
+            return Types.DECIMAL;
+        }
+        if (lowerDataType.contains("float") || lowerDataType.contains("double") || lowerDataType.contains("real")) {
+            return Types.DOUBLE;
+        }
+        if (lowerDataType.contains("datetime") || lowerDataType.contains("timestamp")) {
+            return Types.TIMESTAMP;
+        }
+        if (lowerDataType.equals("date")) {
+            return Types.DATE;
         }
+        if (lowerDataType.equals("bit") || lowerDataType.equals("boolean")) {
+            return Types.BIT;
+        }
+        return Types.VARCHAR;
     }
 
-    public String buildCountQuery() {
-        StringBuilder query = new StringBuilder("SELECT COUNT(*)");
-
-        // FROM clause
-        query.append(" FROM ").append(tableName);
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
 
-        // WHERE clause
-        if (filterConditions != null && !filterConditions.isEmpty()) {
-            query.append(" WHERE ");
-            for (int i = 0; i < filterConditions.size(); i++) {
-                if (i > 0) {
-                    query.append(" AND ");
-                }
-                query.append(buildFilterCondition(filterConditions.get(i)));
-            }
-        }
+    public ParameterizedQuery buildCountQuery() {
+        ParameterizedQuery where = buildWhereClause();
+        String countQuery = dialect.countQuery(tableName, where.getSql());
 
-        String countQuery = query.toString();
         logger.debug("Generated count query: {}", countQuery);
-        return countQuery;
+        return new ParameterizedQuery(countQuery, where.getParameters());
     }
 
-    public String buildSqlServerTopQuery(int topRows) {
-        StringBuilder query = new StringBuilder("SELECT TOP ").append(topRows).append(" ");
-
-        // SELECT clause
-        if (selectedColumns == null || selectedColumns.isEmpty()) {
-            query.append("*");
-        } else {
-            query.append(String.join(", ", selectedColumns));
-        }
-
-        // FROM clause
-        query.append(" FROM ").append(tableName);
-
-        // WHERE clause
-        if (filterConditions != null && !filterConditions.isEmpty()) {
-            query.append(" WHERE ");
-            for (int i = 0; i < filterConditions.size(); i++) {
-                if (i > 0) {
-                    query.append(" AND ");
-                }
-                query.append(buildFilterCondition(filterConditions.get(i)));
-            }
-        }
-
-        // GROUP BY clause
-        if (groupByColumns != null && !groupByColumns.isEmpty()) {
-            query.append(" GROUP BY ");
-            query.append(String.join(", ", groupByColumns));
-        }
-
-        // ORDER BY clause
-        if (sortOrders != null && !sortOrders.isEmpty()) {
-            query.append(" ORDER BY ");
-            for (int i = 0; i < sortOrders.size(); i++) {
-                if (i > 0) {
-                    query.append(", ");
-                }
-                SortOrder sortOrder = sortOrders.get(i);
-                query.append(sortOrder.getColumnName())
-                     .append(" ")
-                     .append(sortOrder.getDirection());
-            }
-        }
-
-        String finalQuery = query.toString();
-        logger.debug("Generated SQL Server TOP query: {}", finalQuery);
-        return finalQuery;
+    /**
+     * Query capped to topRows rows; kept for callers of the former SQL Server variant,
+     * the row limit is produced by the dialect like for build()
+     */
+    public ParameterizedQuery buildSqlServerTopQuery(int topRows) {
+        limit(topRows);
+        return build();
     }
 
     // Static helper methods for common queries
@@ -318,12 +366,13 @@ public class QueryBuilder {
         if (maxRows > 0) {
             builder.limit(maxRows);
         }
-        return builder.build();
+        return builder.build().getSql();
     }
 
     public static String buildSelectWithColumnsQuery(String tableName, List<String> columns, String dbType) {
         return new QueryBuilder(tableName, dbType)
                 .selectColumns(columns)
-                .build();
+                .build()
+                .getSql();
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package de.reports.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Forward-only cursor over a query result.
+ * Rows are read from the driver one at a time, so memory use stays constant
+ * regardless of the size of the result. The cursor owns its connection and
+ * must be closed (try-with-resources) when the caller is done. Snapshot
+ * capture and refresh read whole tables through it.
+ */
+public class QueryCursor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCursor.class);
+
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final List<ColumnInfo> schema;
+
+    private long rowsRead = 0;
+    private boolean exhausted = false;
+    private boolean closed = false;
+
+    QueryCursor(Connection connection, Statement statement, ResultSet resultSet) throws SQLException {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        List<ColumnInfo> columns = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            columns.add(ColumnInfo.fromMetaData(metaData, i));
+        }
+        this.schema = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Advance to the next row. Returns false (and releases the connection)
+     * once the result is exhausted.
+     */
+    public boolean next() throws SQLException {
+        if (closed || exhausted) {
+            return false;
+        }
+
+        if (resultSet.next()) {
+            rowsRead++;
+            return true;
+        }
+
+        exhausted = true;
+        close();
+        return false;
+    }
+
+    /**
+     * Get a value of the current row by 0-based column index
+     */
+    public Object getValue(int columnIndex) throws SQLException {
+        return resultSet.getObject(columnIndex + 1);
+    }
+
+    /**
+     * Column names, types and JDBC types of the result
+     */
+    public List<ColumnInfo> getSchema() {
+        return schema;
+    }
+
+    public int getColumnCount() {
+        return schema.size();
+    }
+
+    /**
+     * Close the cursor. If rows are still pending, the statement is cancelled
+     * first so the driver does not drain the rest of the result over the wire.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (!exhausted) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                logger.debug("Could not cancel statement on early close", e);
+            }
+        }
+
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing result set", e);
+        }
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing statement", e);
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Error returning connection to pool", e);
+        }
+
+        logger.debug("Cursor closed after {} rows{}", rowsRead, exhausted ? "" : " (early close)");
+    }
+}
@@ -0,0 +1,70 @@
+package de.reports.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Handle for cancelling a running database request.
+ *
+ * DatabaseManager registers every statement it executes on behalf of the
+ * request (page query and count query); cancel() aborts them on the server
+ * via Statement.cancel() so they do not keep running or hold pool connections.
+ * Statements registered after cancel() are rejected right away.
+ */
+public class QueryHandle {
+    private static final Logger logger = LoggerFactory.getLogger(QueryHandle.class);
+
+    private final Set<Statement> statements = new HashSet<>();
+    private boolean cancelled = false;
+
+    /**
+     * Track a statement for cancellation; fails if the request is already cancelled
+     */
+    public synchronized void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query was cancelled");
+        }
+        statements.add(statement);
+    }
+
+    public synchronized void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * Cancel the request and all of its running statements
+     */
+    public void cancel() {
+        List<Statement> running;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running = new ArrayList<>(statements);
+        }
+
+        for (Statement statement : running) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Statement finished or closed meanwhile
+                logger.debug("Could not cancel statement", e);
+            }
+        }
+        if (!running.isEmpty()) {
+            logger.info("Cancelled {} running statement(s)", running.size());
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -9,6 +9,7 @@ public class QueryResult {
     private List<String> columnNames;
     private List<Map<String, Object>> data;
     private long executionTime;
+    private ColumnarResult columnarData;
 
     public QueryResult() {
     }
@@ -28,6 +29,18 @@ public class QueryResult {
         this.executionTime = executionTime;
     }
 
+    /**
+     * Create a result backed by columnar storage; rows are exposed as read-only views
+     */
+    public QueryResult(boolean success, String message, ColumnarResult columnarData, long executionTime) {
+        this.success = success;
+        this.message = message;
+        this.columnarData = columnarData;
+        this.columnNames = columnarData.getColumnNames();
+        this.data = columnarData.asRowList();
+        this.executionTime = executionTime;
+    }
+
     public int getRowCount() {
         return data != null ? data.size() : 0;
     }
@@ -97,6 +110,14 @@ public class QueryResult {
 
     public void setData(List<Map<String, Object>> data) {
         this.data = data;
+        this.columnarData = null;
+    }
+
+    /**
+     * Columnar backing store, or null if the result was built from row maps
+     */
+    public ColumnarResult getColumnarData() {
+        return columnarData;
     }
 
     public long getExecutionTime() {
@@ -0,0 +1,149 @@
+package de.reports.database;
+
+import de.reports.database.dialect.SqlDialects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Row counts for whole tables.
+ *
+ * getInstantCount answers from the partition metadata (sys.dm_db_partition_stats,
+ * falling back to sys.partitions) without touching the table data; the value is
+ * approximate. getExactCount runs SELECT COUNT(*) and is meant to be called only
+ * on demand, its result is cached until invalidated (the table is opened again).
+ */
+public class RowCountProvider {
+    private static final Logger logger = LoggerFactory.getLogger(RowCountProvider.class);
+
+    private static final String PARTITION_STATS_QUERY =
+        "SELECT SUM(row_count) FROM sys.dm_db_partition_stats " +
+        "WHERE object_id = OBJECT_ID(?) AND index_id IN (0, 1)";
+
+    private static final String PARTITIONS_QUERY =
+        "SELECT SUM(rows) FROM sys.partitions " +
+        "WHERE object_id = OBJECT_ID(?) AND index_id IN (0, 1)";
+
+    private final DataSource dataSource;
+    private final String dbType;
+    private final Map<String, Long> exactCounts = new ConcurrentHashMap<>();
+
+    public RowCountProvider(DataSource dataSource, String dbType) {
+        this.dataSource = dataSource;
+        this.dbType = dbType != null ? dbType.toLowerCase() : "";
+    }
+
+    /**
+     * Fast row count: a cached exact count if available, otherwise the metadata estimate.
+     * Falls back to an exact count only when no metadata source is available; if that
+     * fails too the count is unknown and reported as an approximate 0.
+     */
+    public RowCount getInstantCount(String tableName) {
+        Long exact = exactCounts.get(tableName);
+        if (exact != null) {
+            return new RowCount(exact, true);
+        }
+
+        if ("sqlserver".equals(dbType)) {
+            Long estimate = queryMetadataCount(PARTITION_STATS_QUERY, tableName);
+            if (estimate == null) {
+                // dm_db_partition_stats needs VIEW DATABASE STATE - sys.partitions does not
+                estimate = queryMetadataCount(PARTITIONS_QUERY, tableName);
+            }
+            if (estimate != null) {
+                logger.info("Table {} has approximately {} records (metadata)", tableName, estimate);
+                return new RowCount(estimate, false);
+            }
+        }
+
+        long exactCount = getExactCount(tableName);
+        return exactCount >= 0 ? new RowCount(exactCount, true) : new RowCount(0, false);
+    }
+
+    /**
+     * Exact row count via SELECT COUNT(*) - scans the table, call off the UI thread.
+     * Returns -1 if the count failed; failures are not cached.
+     */
+    public long getExactCount(String tableName) {
+        Long cached = exactCounts.get(tableName);
+        if (cached != null) {
+            return cached;
+        }
+
+        String query = SqlDialects.forType(dbType).countQuery(tableName, null);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query);
+             ResultSet resultSet = statement.executeQuery()) {
+
+            if (resultSet.next()) {
+                long count = resultSet.getLong(1);
+                exactCounts.put(tableName, count);
+                logger.info("Table {} has exactly {} records", tableName, count);
+                return count;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Failed to get exact record count for table: {}", tableName, e);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Drop the cached exact count of a table
+     */
+    public void invalidate(String tableName) {
+        exactCounts.remove(tableName);
+    }
+
+    /**
+     * Drop all cached exact counts
+     */
+    public void clear() {
+        exactCounts.clear();
+    }
+
+    private Long queryMetadataCount(String query, String tableName) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+
+            statement.setString(1, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    long count = resultSet.getLong(1);
+                    // SUM over no rows (unknown object) yields NULL
+                    return resultSet.wasNull() ? null : count;
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.debug("Metadata row count not available for table: {}", tableName, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * A row count and whether it is exact or a metadata estimate
+     */
+    public static class RowCount {
+        private final long count;
+        private final boolean exact;
+
+        public RowCount(long count, boolean exact) {
+            this.count = count;
+            this.exact = exact;
+        }
+
+        public long getCount() { return count; }
+        public boolean isExact() { return exact; }
+    }
+}
@@ -0,0 +1,460 @@
+package de.reports.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * In-memory catalog of tables, columns and indexes for one connection.
+ *
+ * Tables are looked up by bare name, so the catalog is restricted to the
+ * connection's default catalog and schema; tables of other schemas would
+ * otherwise collide under the same name.
+ * The whole schema is loaded with one bulk getTables and one bulk getColumns
+ * call and served from memory afterwards. On SQL Server all indexes are read
+ * with one sys.indexes query (filtered and disabled indexes are left out, they
+ * neither guarantee uniqueness over the table nor serve seeks); other databases load the indexes of a table
+ * through getPrimaryKeys / getIndexInfo on first use. The column infos carry
+ * the primary key, auto-increment and indexed flags. Once the TTL has expired the catalog
+ * checks sys.objects (count and max modify_date of the schema's user tables); it is only
+ * reloaded if that signature changed. invalidate() forces a reload.
+ */
+public class SchemaCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCatalog.class);
+
+    private static final String INDEX_QUERY =
+        "SELECT t.name, i.name, i.is_primary_key, i.is_unique, c.name " +
+        "FROM sys.indexes i " +
+        "JOIN sys.tables t ON t.object_id = i.object_id " +
+        "JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id " +
+        "JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id " +
+        "WHERE i.type > 0 AND i.is_hypothetical = 0 AND ic.key_ordinal > 0 " +
+        "AND i.has_filter = 0 AND i.is_disabled = 0 AND t.schema_id = SCHEMA_ID() " +
+        "ORDER BY t.name, i.is_primary_key DESC, i.index_id, ic.key_ordinal";
+
+    private static final String SCHEMA_SIGNATURE_QUERY =
+        "SELECT COUNT(*), MAX(modify_date) FROM sys.objects WHERE type = 'U' AND schema_id = SCHEMA_ID()";
+
+    private final DataSource dataSource;
+    private final String dbType;
+    private final long ttlMillis;
+
+    private Snapshot snapshot;
+
+    public SchemaCatalog(DataSource dataSource, String dbType, long ttlMillis) {
+        this.dataSource = dataSource;
+        this.dbType = dbType != null ? dbType.toLowerCase() : "";
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * All user table names known to the catalog, sorted
+     */
+    public List<String> getTableNames() throws SQLException {
+        return current().tableNames;
+    }
+
+    /**
+     * Columns of a table in ordinal order (table name is case-insensitive)
+     */
+    public List<ColumnInfo> getColumns(String tableName) throws SQLException {
+        Snapshot snapshot = current();
+        List<ColumnInfo> columns = snapshot.columns.get(tableName);
+        if (columns == null) {
+            return Collections.emptyList();
+        }
+        ensureIndexes(snapshot, tableName);
+        return columns;
+    }
+
+    /**
+     * Indexes of a table, primary key first
+     */
+    public List<IndexInfo> getIndexes(String tableName) throws SQLException {
+        Snapshot snapshot = current();
+        if (!snapshot.columns.containsKey(tableName)) {
+            return Collections.emptyList();
+        }
+        return ensureIndexes(snapshot, tableName);
+    }
+
+    /**
+     * Primary key columns in key order, empty if the table has none
+     */
+    public List<String> getPrimaryKey(String tableName) throws SQLException {
+        for (IndexInfo index : getIndexes(tableName)) {
+            if (index.isPrimaryKey()) {
+                return index.getColumns();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * A unique key without nullable columns: the primary key, otherwise the first
+     * such unique index. Empty if the table has none.
+     */
+    public List<String> findUniqueKey(String tableName) throws SQLException {
+        List<String> primaryKey = getPrimaryKey(tableName);
+        if (!primaryKey.isEmpty()) {
+            return primaryKey;
+        }
+
+        // NULLs would break seek comparisons
+        Set<String> nullableColumns = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (ColumnInfo column : getColumns(tableName)) {
+            if (column.isNullable()) {
+                nullableColumns.add(column.getName());
+            }
+        }
+
+        for (IndexInfo index : getIndexes(tableName)) {
+            if (index.isUnique() && Collections.disjoint(index.getColumns(), nullableColumns)) {
+                return index.getColumns();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Whether the column leads an index, i.e. a filter or sort on it can seek
+     */
+    public boolean isIndexed(String tableName, String columnName) throws SQLException {
+        for (IndexInfo index : getIndexes(tableName)) {
+            if (index.hasLeadingColumn(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Columns that lead an index, primary key column first
+     */
+    public List<String> getIndexedColumns(String tableName) throws SQLException {
+        Set<String> indexed = new LinkedHashSet<>();
+        for (IndexInfo index : getIndexes(tableName)) {
+            indexed.add(index.getLeadingColumn());
+        }
+        return new ArrayList<>(indexed);
+    }
+
+    /**
+     * Drop the cached schema; the next lookup reloads it
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+        logger.info("Schema catalog invalidated");
+    }
+
+    private synchronized Snapshot current() throws SQLException {
+        long now = System.currentTimeMillis();
+
+        if (snapshot != null && now - snapshot.validatedAt < ttlMillis) {
+            return snapshot;
+        }
+
+        if (snapshot != null && snapshot.signature != null) {
+            String signature = readSchemaSignature();
+            if (snapshot.signature.equals(signature)) {
+                snapshot.validatedAt = now;
+                logger.debug("Schema unchanged, catalog TTL extended");
+                return snapshot;
+            }
+            logger.info("Schema changed ({} -> {}), reloading catalog", snapshot.signature, signature);
+        }
+
+        snapshot = load();
+        return snapshot;
+    }
+
+    private Snapshot load() throws SQLException {
+        long startTime = System.currentTimeMillis();
+        String signature = readSchemaSignature();
+
+        List<String> tableNames = new ArrayList<>();
+        Map<String, List<ColumnInfo>> columns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String catalog;
+        String schema;
+
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            catalog = connection.getCatalog();
+            schema = connection.getSchema();
+            String schemaPattern = escapePattern(schema, metaData.getSearchStringEscape());
+
+            try (ResultSet tables = metaData.getTables(catalog, schemaPattern, "%", new String[]{"TABLE"})) {
+                while (tables.next()) {
+                    String tableName = tables.getString("TABLE_NAME");
+                    tableNames.add(tableName);
+                    columns.put(tableName, new ArrayList<>());
+                }
+            }
+
+            // One round trip for the columns of all tables
+            try (ResultSet resultSet = metaData.getColumns(catalog, schemaPattern, "%", "%")) {
+                while (resultSet.next()) {
+                    List<ColumnInfo> tableColumns = columns.get(resultSet.getString("TABLE_NAME"));
+                    if (tableColumns == null) {
+                        continue; // view or system object
+                    }
+
+                    ColumnInfo columnInfo = new ColumnInfo(
+                        resultSet.getString("COLUMN_NAME"),
+                        resultSet.getString("TYPE_NAME"),
+                        resultSet.getInt("COLUMN_SIZE"),
+                        // Unknown nullability counts as nullable - a NULL in a key breaks seeks
+                        resultSet.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls,
+                        resultSet.getString("COLUMN_DEF"));
+                    columnInfo.setJdbcType(resultSet.getInt("DATA_TYPE"));
+                    columnInfo.setAutoIncrement("YES".equalsIgnoreCase(resultSet.getString("IS_AUTOINCREMENT")));
+                    tableColumns.add(columnInfo);
+                }
+            }
+        }
+
+        Collections.sort(tableNames);
+        for (Map.Entry<String, List<ColumnInfo>> entry : columns.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        Snapshot loaded = new Snapshot(Collections.unmodifiableList(tableNames), columns, catalog, schema, signature);
+        if ("sqlserver".equals(dbType)) {
+            loadAllIndexes(loaded);
+        }
+
+        logger.info("Schema catalog loaded: {} tables of schema {} in {} ms",
+            tableNames.size(), schema, System.currentTimeMillis() - startTime);
+        return loaded;
+    }
+
+    /**
+     * All indexes of the default schema's user tables in one round trip (SQL Server)
+     */
+    private void loadAllIndexes(Snapshot snapshot) {
+        Map<String, Map<String, IndexBuilder>> byTable = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INDEX_QUERY);
+             ResultSet resultSet = statement.executeQuery()) {
+
+            while (resultSet.next()) {
+                byTable.computeIfAbsent(resultSet.getString(1), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(resultSet.getString(2),
+                        k -> new IndexBuilder(k, getBoolean(resultSet, 3), getBoolean(resultSet, 4)))
+                    .columns.add(resultSet.getString(5));
+            }
+
+        } catch (SQLException e) {
+            // Falls back to loading the indexes per table via DatabaseMetaData
+            logger.warn("Could not bulk load indexes, loading them per table", e);
+            return;
+        }
+
+        for (String tableName : snapshot.tableNames) {
+            Map<String, IndexBuilder> tableIndexes = byTable.get(tableName);
+            snapshot.putIndexes(tableName, build(tableIndexes != null ? tableIndexes.values() : null));
+        }
+    }
+
+    private synchronized List<IndexInfo> ensureIndexes(Snapshot snapshot, String tableName) throws SQLException {
+        List<IndexInfo> indexes = snapshot.indexes.get(tableName);
+        if (indexes == null) {
+            indexes = loadIndexes(snapshot.catalog, snapshot.schema, tableName);
+            snapshot.putIndexes(tableName, indexes);
+        }
+        return indexes;
+    }
+
+    /**
+     * Indexes of one table via DatabaseMetaData
+     */
+    private List<IndexInfo> loadIndexes(String catalog, String schema, String tableName) throws SQLException {
+        Map<String, IndexBuilder> indexes = new LinkedHashMap<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+
+            Map<Short, String> primaryKey = new TreeMap<>();
+            String primaryKeyName = null;
+            try (ResultSet resultSet = metaData.getPrimaryKeys(catalog, schema, tableName)) {
+                while (resultSet.next()) {
+                    primaryKey.put(resultSet.getShort("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+                    primaryKeyName = resultSet.getString("PK_NAME");
+                }
+            }
+            if (!primaryKey.isEmpty()) {
+                String name = primaryKeyName != null ? primaryKeyName : "PRIMARY";
+                IndexBuilder builder = new IndexBuilder(name, true, true);
+                builder.columns.addAll(primaryKey.values());
+                indexes.put(name, builder);
+            }
+
+            Map<String, Map<Short, String>> indexColumns = new LinkedHashMap<>();
+            Map<String, Boolean> uniqueness = new LinkedHashMap<>();
+            try (ResultSet resultSet = metaData.getIndexInfo(catalog, schema, tableName, false, true)) {
+                while (resultSet.next()) {
+                    String indexName = resultSet.getString("INDEX_NAME");
+                    String columnName = resultSet.getString("COLUMN_NAME");
+                    if (indexName == null || columnName == null || indexes.containsKey(indexName)) {
+                        continue; // table statistics row or the primary key again
+                    }
+                    indexColumns.computeIfAbsent(indexName, k -> new TreeMap<>())
+                        .put(resultSet.getShort("ORDINAL_POSITION"), columnName);
+                    uniqueness.put(indexName, !resultSet.getBoolean("NON_UNIQUE"));
+                }
+            }
+            for (Map.Entry<String, Map<Short, String>> index : indexColumns.entrySet()) {
+                IndexBuilder builder = new IndexBuilder(index.getKey(), false, uniqueness.get(index.getKey()));
+                builder.columns.addAll(index.getValue().values());
+                indexes.put(index.getKey(), builder);
+            }
+        }
+
+        logger.debug("Loaded {} indexes for table {}", indexes.size(), tableName);
+        return build(indexes.values());
+    }
+
+    private static List<IndexInfo> build(Collection<IndexBuilder> builders) {
+        if (builders == null) {
+            return Collections.emptyList();
+        }
+
+        List<IndexInfo> indexes = new ArrayList<>();
+        for (IndexBuilder builder : builders) {
+            indexes.add(new IndexInfo(builder.name, builder.primaryKey, builder.unique, builder.columns));
+        }
+        // Primary key first, then unique indexes
+        indexes.sort(Comparator.comparing(IndexInfo::isPrimaryKey)
+            .thenComparing(IndexInfo::isUnique)
+            .reversed());
+        return Collections.unmodifiableList(indexes);
+    }
+
+    /**
+     * Schema name as a metadata search pattern: '_' and '%' are matched literally
+     */
+    private static String escapePattern(String name, String escape) {
+        if (name == null || escape == null || escape.isEmpty()) {
+            return name;
+        }
+        return name.replace(escape, escape + escape)
+            .replace("_", escape + "_")
+            .replace("%", escape + "%");
+    }
+
+    private static boolean getBoolean(ResultSet resultSet, int column) {
+        try {
+            return resultSet.getBoolean(column);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cheap fingerprint of the user tables; null if not supported by the database
+     */
+    private String readSchemaSignature() {
+        if (!"sqlserver".equals(dbType)) {
+            return null;
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SCHEMA_SIGNATURE_QUERY);
+             ResultSet resultSet = statement.executeQuery()) {
+
+            if (resultSet.next()) {
+                Timestamp lastModified = resultSet.getTimestamp(2);
+                return resultSet.getInt(1) + "@" + Objects.toString(lastModified, "-");
+            }
+
+        } catch (SQLException e) {
+            logger.debug("Could not read schema signature", e);
+        }
+
+        return null;
+    }
+
+    private static class Snapshot {
+        private final List<String> tableNames;
+        private final Map<String, List<ColumnInfo>> columns;
+        private final Map<String, List<IndexInfo>> indexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final String catalog;
+        private final String schema;
+        private final String signature;
+        private long validatedAt;
+
+        Snapshot(List<String> tableNames, Map<String, List<ColumnInfo>> columns,
+                 String catalog, String schema, String signature) {
+            this.tableNames = tableNames;
+            this.columns = columns;
+            this.catalog = catalog;
+            this.schema = schema;
+            this.signature = signature;
+            this.validatedAt = System.currentTimeMillis();
+        }
+
+        /**
+         * Store the indexes of a table and flag its key / indexed columns
+         */
+        void putIndexes(String tableName, List<IndexInfo> tableIndexes) {
+            indexes.put(tableName, tableIndexes);
+
+            List<ColumnInfo> tableColumns = columns.get(tableName);
+            if (tableColumns == null) {
+                return;
+            }
+            for (ColumnInfo column : tableColumns) {
+                for (IndexInfo index : tableIndexes) {
+                    if (index.isPrimaryKey() && containsIgnoreCase(index.getColumns(), column.getName())) {
+                        column.setPrimaryKey(true);
+                    }
+                    if (index.hasLeadingColumn(column.getName())) {
+                        column.setIndexed(true);
+                    }
+                }
+            }
+        }
+
+        private static boolean containsIgnoreCase(List<String> values, String value) {
+            for (String candidate : values) {
+                if (candidate.equalsIgnoreCase(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class IndexBuilder {
+        private final String name;
+        private final boolean primaryKey;
+        private final boolean unique;
+        private final List<String> columns = new ArrayList<>();
+
+        IndexBuilder(String name, boolean primaryKey, boolean unique) {
+            this.name = name;
+            this.primaryKey = primaryKey;
+            this.unique = unique;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.reports.database;
+
+/**
+ * Preview of a large column value: the leading part fetched by the preview
+ * query plus the full length reported by the server.
+ *
+ * The full value is loaded on demand with DatabaseManager.loadFullValue().
+ */
+public class TruncatedValue {
+    private final Object prefix;
+    private final long totalLength;
+
+    public TruncatedValue(Object prefix, long totalLength) {
+        this.prefix = prefix;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * Leading characters (String) or bytes (byte[]) of the value
+     */
+    public Object getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Full length in characters, or bytes for binary values
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    public boolean isBinary() {
+        return prefix instanceof byte[];
+    }
+
+    /**
+     * Whether the value is longer than the fetched prefix
+     */
+    public boolean isTruncated() {
+        return totalLength > prefixLength();
+    }
+
+    private int prefixLength() {
+        if (prefix instanceof byte[]) {
+            return ((byte[]) prefix).length;
+        }
+        return prefix != null ? prefix.toString().length() : 0;
+    }
+
+    @Override
+    public String toString() {
+        if (isBinary()) {
+            return "[" + totalLength + " Bytes]";
+        }
+        String text = prefix != null ? prefix.toString() : "";
+        return isTruncated() ? text + "…" : text;
+    }
+}
@@ -0,0 +1,18 @@
+package de.reports.database.dialect;
+
+/**
+ * MySQL / MariaDB: LIMIT offset, count. Seek predicates stay expanded because
+ * older optimizers do not use an index for row-value comparisons.
+ */
+public class MySqlDialect extends StandardSqlDialect {
+
+    @Override
+    public String getName() {
+        return "mysql";
+    }
+
+    @Override
+    public String paginate(String select, String orderBy, int offset, int maxRows) {
+        return appendOrderBy(select, orderBy) + " LIMIT " + offset + ", " + maxRows;
+    }
+}
@@ -0,0 +1,33 @@
+package de.reports.database.dialect;
+
+/**
+ * Oracle 12c and later: FETCH FIRST / OFFSET ... FETCH NEXT row limiting.
+ */
+public class OracleDialect extends StandardSqlDialect {
+
+    @Override
+    public String getName() {
+        return "oracle";
+    }
+
+    @Override
+    public String limit(String select, String orderBy, int maxRows) {
+        return appendOrderBy(select, orderBy) + " FETCH FIRST " + maxRows + " ROWS ONLY";
+    }
+
+    @Override
+    public String paginate(String select, String orderBy, int offset, int maxRows) {
+        return appendOrderBy(select, orderBy)
+            + " OFFSET " + offset + " ROWS FETCH NEXT " + maxRows + " ROWS ONLY";
+    }
+
+    @Override
+    public String valuePrefix(String column, int maxLength, boolean binary) {
+        return "DBMS_LOB.SUBSTR(" + column + ", " + maxLength + ", 1)";
+    }
+
+    @Override
+    public String valueLength(String column, boolean binary, boolean unicode) {
+        return "DBMS_LOB.GETLENGTH(" + column + ")";
+    }
+}
@@ -0,0 +1,19 @@
+package de.reports.database.dialect;
+
+import java.util.List;
+
+/**
+ * PostgreSQL: LIMIT / OFFSET, row-value seek predicates.
+ */
+public class PostgreSqlDialect extends StandardSqlDialect {
+
+    @Override
+    public String getName() {
+        return "postgresql";
+    }
+
+    @Override
+    public <T> String seekPredicate(List<String> keyColumns, boolean after, T[] anchor, List<T> parameters) {
+        return rowValueSeekPredicate(keyColumns, after, anchor, parameters);
+    }
+}
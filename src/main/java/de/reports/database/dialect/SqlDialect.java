@@ -0,0 +1,62 @@
+package de.reports.database.dialect;
+
+import java.util.List;
+
+/**
+ * Database specific SQL generation for row limits, pagination, seek predicates and counts.
+ *
+ * All statements that cap or page rows are built through the dialect of the
+ * connection, so the row limit is always applied by the database server.
+ * Implementations are stateless; obtain them with {@link SqlDialects#forType(String)}.
+ */
+public interface SqlDialect {
+
+    /**
+     * Dialect name (database type as used in the connection settings)
+     */
+    String getName();
+
+    /**
+     * Cap a SELECT (without ORDER BY) to maxRows rows
+     *
+     * @param select  SELECT statement without ORDER BY
+     * @param orderBy ORDER BY list without the keyword, or null for no particular order
+     * @param maxRows maximum number of rows
+     */
+    String limit(String select, String orderBy, int maxRows);
+
+    /**
+     * Page through a SELECT (without ORDER BY); adds a neutral order if the database needs one
+     *
+     * @param select  SELECT statement without ORDER BY
+     * @param orderBy ORDER BY list without the keyword, or null for no particular order
+     * @param offset  number of rows to skip
+     * @param maxRows maximum number of rows
+     */
+    String paginate(String select, String orderBy, int offset, int maxRows);
+
+    /**
+     * COUNT query for a table and optional WHERE condition (without the keyword)
+     */
+    String countQuery(String tableName, String whereClause);
+
+    /**
+     * Seek predicate selecting the rows after (or before) the anchor key in key order.
+     * Adds the bind values for the ? placeholders to parameters, in placeholder order
+     * (the anchor entries are passed through as they are, e.g. typed parameters).
+     */
+    <T> String seekPredicate(List<String> keyColumns, boolean after, T[] anchor, List<T> parameters);
+
+    /**
+     * Expression for the first maxLength characters (bytes for binary columns) of a column
+     */
+    String valuePrefix(String column, int maxLength, boolean binary);
+
+    /**
+     * Expression for the full length of a column value in characters (bytes for binary columns),
+     * trailing blanks included
+     *
+     * @param unicode whether the column is a national (nchar / nvarchar / ntext) column
+     */
+    String valueLength(String column, boolean binary, boolean unicode);
+}
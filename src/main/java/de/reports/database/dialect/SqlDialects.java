@@ -0,0 +1,42 @@
+package de.reports.database.dialect;
+
+/**
+ * Factory for the dialect of a database type
+ */
+public final class SqlDialects {
+    private static final SqlDialect SQL_SERVER = new SqlServerDialect();
+    private static final SqlDialect POSTGRESQL = new PostgreSqlDialect();
+    private static final SqlDialect MYSQL = new MySqlDialect();
+    private static final SqlDialect ORACLE = new OracleDialect();
+    private static final SqlDialect H2 = new H2Dialect();
+    private static final SqlDialect STANDARD = new StandardSqlDialect();
+
+    private SqlDialects() {
+    }
+
+    /**
+     * Dialect for a database type as used in DatabaseConnectionInfo (case-insensitive);
+     * unknown types get the LIMIT / OFFSET standard dialect
+     */
+    public static SqlDialect forType(String dbType) {
+        if (dbType == null) {
+            return STANDARD;
+        }
+
+        switch (dbType.toLowerCase()) {
+            case "sqlserver":
+                return SQL_SERVER;
+            case "postgresql":
+                return POSTGRESQL;
+            case "mysql":
+            case "mariadb":
+                return MYSQL;
+            case "oracle":
+                return ORACLE;
+            case "h2":
+                return H2;
+            default:
+                return STANDARD;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package de.reports.database.dialect;
+
+/**
+ * SQL Server: TOP for plain row caps, OFFSET / FETCH (which requires an ORDER BY) for pages.
+ */
+public class SqlServerDialect extends StandardSqlDialect {
+
+    @Override
+    public String getName() {
+        return "sqlserver";
+    }
+
+    @Override
+    public String limit(String select, String orderBy, int maxRows) {
+        return appendOrderBy(insertTop(select, maxRows), orderBy);
+    }
+
+    @Override
+    public String paginate(String select, String orderBy, int offset, int maxRows) {
+        if (offset <= 0) {
+            return limit(select, orderBy, maxRows);
+        }
+        String order = orderBy != null && !orderBy.trim().isEmpty() ? orderBy : "(SELECT NULL)";
+        return appendOrderBy(select, order)
+            + " OFFSET " + offset + " ROWS FETCH NEXT " + maxRows + " ROWS ONLY";
+    }
+
+    @Override
+    public String countQuery(String tableName, String whereClause) {
+        return appendWhere("SELECT COUNT_BIG(*) FROM " + tableName, whereClause);
+    }
+
+    /**
+     * SUBSTRING instead of LEFT, which also accepts the legacy text, ntext and image types.
+     * Text goes through nvarchar(max) like the length: SUBSTRING rejects xml columns.
+     */
+    @Override
+    public String valuePrefix(String column, int maxLength, boolean binary) {
+        String value = binary ? column : "CAST(" + column + " AS nvarchar(max))";
+        return "SUBSTRING(" + value + ", 1, " + maxLength + ")";
+    }
+
+    @Override
+    public String valueLength(String column, boolean binary, boolean unicode) {
+        // DATALENGTH reads the stored size instead of the value and keeps trailing blanks, unlike LEN
+        return !binary && unicode ? "DATALENGTH(" + column + ") / 2" : "DATALENGTH(" + column + ")";
+    }
+
+    private static String insertTop(String select, int maxRows) {
+        String trimmed = select.trim();
+        String keyword = trimmed.regionMatches(true, 0, "SELECT DISTINCT ", 0, 16) ? "SELECT DISTINCT " : "SELECT ";
+        return keyword + "TOP " + maxRows + " " + trimmed.substring(keyword.length());
+    }
+}
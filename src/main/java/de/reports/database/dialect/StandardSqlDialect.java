@@ -0,0 +1,96 @@
+package de.reports.database.dialect;
+
+import java.util.List;
+
+/**
+ * LIMIT / OFFSET dialect, also the fallback for unknown database types.
+ * The seek predicate is spelled out as (a &gt; ? OR (a = ? AND b &gt; ?)),
+ * which every database can match against an index on the key.
+ */
+public class StandardSqlDialect implements SqlDialect {
+
+    @Override
+    public String getName() {
+        return "standard";
+    }
+
+    @Override
+    public String limit(String select, String orderBy, int maxRows) {
+        return appendOrderBy(select, orderBy) + " LIMIT " + maxRows;
+    }
+
+    @Override
+    public String paginate(String select, String orderBy, int offset, int maxRows) {
+        return appendOrderBy(select, orderBy) + " LIMIT " + maxRows + " OFFSET " + offset;
+    }
+
+    @Override
+    public String countQuery(String tableName, String whereClause) {
+        return appendWhere("SELECT COUNT(*) FROM " + tableName, whereClause);
+    }
+
+    @Override
+    public <T> String seekPredicate(List<String> keyColumns, boolean after, T[] anchor, List<T> parameters) {
+        String comparison = after ? " > ?" : " < ?";
+        StringBuilder predicate = new StringBuilder("(");
+
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                predicate.append(" OR ");
+            }
+            predicate.append("(");
+            for (int j = 0; j < i; j++) {
+                predicate.append(keyColumns.get(j)).append(" = ? AND ");
+                parameters.add(anchor[j]);
+            }
+            predicate.append(keyColumns.get(i)).append(comparison).append(")");
+            parameters.add(anchor[i]);
+        }
+
+        return predicate.append(")").toString();
+    }
+
+    @Override
+    public String valuePrefix(String column, int maxLength, boolean binary) {
+        return "SUBSTRING(" + column + " FROM 1 FOR " + maxLength + ")";
+    }
+
+    @Override
+    public String valueLength(String column, boolean binary, boolean unicode) {
+        return (binary ? "OCTET_LENGTH(" : "CHAR_LENGTH(") + column + ")";
+    }
+
+    protected static String appendOrderBy(String select, String orderBy) {
+        if (orderBy == null || orderBy.trim().isEmpty()) {
+            return select;
+        }
+        return select + " ORDER BY " + orderBy;
+    }
+
+    protected static String appendWhere(String select, String whereClause) {
+        if (whereClause == null || whereClause.trim().isEmpty()) {
+            return select;
+        }
+        return select + " WHERE " + whereClause;
+    }
+
+    /**
+     * Row-value seek predicate (a, b) &gt; (?, ?) for databases that optimize it
+     */
+    protected static <T> String rowValueSeekPredicate(List<String> keyColumns, boolean after, T[] anchor,
+                                                      List<T> parameters) {
+        StringBuilder predicate = new StringBuilder("(")
+            .append(String.join(", ", keyColumns))
+            .append(after ? ") > (" : ") < (");
+
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                predicate.append(", ");
+            }
+            predicate.append("?");
+            parameters.add(anchor[i]);
+        }
+
+        return predicate.append(")").toString();
+    }
+}
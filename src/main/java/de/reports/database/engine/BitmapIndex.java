@@ -0,0 +1,143 @@
+package de.reports.database.engine;
+
+import de.reports.database.ColumnVector;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * One RowBitmap per distinct value of a low-cardinality column.
+ *
+ * Text columns use their dictionary codes as value slots, integer columns the
+ * sorted distinct values. NULL rows are in no bitmap, so the union of the
+ * bitmaps of the non-matching values is the SQL result of a negated condition.
+ * Columns with more than MAX_VALUES distinct values are not indexed; the
+ * decision is cached per vector as well. Indexes are only worth building for
+ * vectors that are filtered more than once, e.g. the columns a TableSnapshot
+ * keeps.
+ */
+public class BitmapIndex {
+    static final int MAX_VALUES = 1024;
+
+    private static final BitmapIndex NOT_INDEXED = new BitmapIndex(null, new RowBitmap[0]);
+    private static final Map<ColumnVector, BitmapIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** distinct values of integer columns, ascending; null for text columns */
+    private final long[] keys;
+    private final RowBitmap[] bitmaps;
+
+    private BitmapIndex(long[] keys, RowBitmap[] bitmaps) {
+        this.keys = keys;
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Index of the column, built now if it does not exist yet; null if the column
+     * has too many distinct values or no suitable representation
+     */
+    public static BitmapIndex of(ColumnVector vector) {
+        BitmapIndex index = INDEXES.get(vector);
+        if (index == null) {
+            index = build(vector);
+            INDEXES.put(vector, index);
+        }
+        return index != NOT_INDEXED ? index : null;
+    }
+
+    /**
+     * Index of the column if one was built, otherwise null
+     */
+    static BitmapIndex cached(ColumnVector vector) {
+        BitmapIndex index = INDEXES.get(vector);
+        return index != NOT_INDEXED ? index : null;
+    }
+
+    private static BitmapIndex build(ColumnVector vector) {
+        if (vector instanceof ColumnVector.StringVector) {
+            ColumnVector.StringVector strings = (ColumnVector.StringVector) vector;
+            if (!strings.isDictionaryEncoded() || strings.getDictionarySize() > MAX_VALUES) {
+                return NOT_INDEXED;
+            }
+            int[] codes = strings.getCodes();
+            return new BitmapIndex(null, collect(vector.getNulls(), vector.size(),
+                strings.getDictionarySize(), row -> codes[row]));
+        }
+
+        if (vector instanceof ColumnVector.IntVector || vector instanceof ColumnVector.LongVector) {
+            int[] ints = vector instanceof ColumnVector.IntVector ? ((ColumnVector.IntVector) vector).getValues() : null;
+            long[] longs = vector instanceof ColumnVector.LongVector ? ((ColumnVector.LongVector) vector).getValues() : null;
+            BitSet nulls = vector.getNulls();
+            int rowCount = vector.size();
+
+            // Distinct values kept sorted - at most MAX_VALUES, so inserting is cheap
+            long[] keys = new long[16];
+            int keyCount = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (!nulls.get(row)) {
+                    long value = ints != null ? ints[row] : longs[row];
+                    int position = Arrays.binarySearch(keys, 0, keyCount, value);
+                    if (position < 0) {
+                        if (keyCount == MAX_VALUES) {
+                            return NOT_INDEXED;
+                        }
+                        if (keyCount == keys.length) {
+                            keys = Arrays.copyOf(keys, keyCount * 2);
+                        }
+                        position = -position - 1;
+                        System.arraycopy(keys, position, keys, position + 1, keyCount - position);
+                        keys[position] = value;
+                        keyCount++;
+                    }
+                }
+            }
+
+            long[] distinct = Arrays.copyOf(keys, keyCount);
+            return new BitmapIndex(distinct, collect(nulls, rowCount, keyCount,
+                row -> Arrays.binarySearch(distinct, ints != null ? ints[row] : longs[row])));
+        }
+
+        return NOT_INDEXED;
+    }
+
+    private static RowBitmap[] collect(BitSet nulls, int rowCount, int slotCount, IntUnaryOperator slotOf) {
+        RowBitmap.Builder[] builders = new RowBitmap.Builder[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            builders[slot] = new RowBitmap.Builder();
+        }
+        for (int row = 0; row < rowCount; row++) {
+            if (!nulls.get(row)) {
+                builders[slotOf.applyAsInt(row)].add(row);
+            }
+        }
+        RowBitmap[] bitmaps = new RowBitmap[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            bitmaps[slot] = builders[slot].build();
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Distinct value of a slot of an integer column
+     */
+    long getKey(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Union of the bitmaps of all slots accepted by the predicate
+     */
+    RowBitmap rows(IntPredicate slotMatches) {
+        RowBitmap result = RowBitmap.empty();
+        for (int slot = 0; slot < bitmaps.length; slot++) {
+            if (slotMatches.test(slot)) {
+                result = result.or(bitmaps[slot]);
+            }
+        }
+        return result;
+    }
+}
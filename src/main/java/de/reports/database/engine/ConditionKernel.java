@@ -0,0 +1,360 @@
+package de.reports.database.engine;
+
+import de.reports.database.ColumnVector;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * One filter condition bound to a column vector.
+ *
+ * A kernel works on selection vectors (ascending row ids): select() scans a
+ * row range, refine() keeps the rows of an existing selection that match, and
+ * may write into its input array. The primitive kernels have their own loops
+ * over the raw arrays so each loop stays monomorphic; dictionary encoded text
+ * columns are evaluated once per dictionary entry and then only compare codes. NULL never
+ * matches, negated conditions included, as in SQL.
+ */
+abstract class ConditionKernel {
+    protected final BitSet nulls;
+
+    protected ConditionKernel(BitSet nulls) {
+        this.nulls = nulls;
+    }
+
+    /**
+     * Test a non-null row; the default loops use it, the specialised kernels
+     * answer it with the same condition as their own loops
+     */
+    protected abstract boolean test(int row);
+
+    int select(int from, int to, int[] out) {
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            if (!nulls.get(row) && test(row)) {
+                out[count++] = row;
+            }
+        }
+        return count;
+    }
+
+    int refine(int[] rows, int rowCount, int[] out) {
+        int count = 0;
+        for (int i = 0; i < rowCount; i++) {
+            int row = rows[i];
+            if (!nulls.get(row) && test(row)) {
+                out[count++] = row;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * IS NULL / IS NOT NULL
+     */
+    static class NullKernel extends ConditionKernel {
+        private final boolean matchNull;
+
+        NullKernel(BitSet nulls, boolean matchNull) {
+            super(nulls);
+            this.matchNull = matchNull;
+        }
+
+        @Override
+        protected boolean test(int row) {
+            return !matchNull; // only non-null rows get here
+        }
+
+        @Override
+        int select(int from, int to, int[] out) {
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                if (nulls.get(row) == matchNull) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        int refine(int[] rows, int rowCount, int[] out) {
+            int count = 0;
+            for (int i = 0; i < rowCount; i++) {
+                if (nulls.get(rows[i]) == matchNull) {
+                    out[count++] = rows[i];
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Range [low, high] or value set over INTEGER / SMALLINT / TINYINT columns
+     */
+    static class IntKernel extends ConditionKernel {
+        private final int[] values;
+        private final long low;
+        private final long high;
+        private final long[] set;
+        private final boolean negate;
+
+        IntKernel(ColumnVector.IntVector vector, long low, long high, long[] set, boolean negate) {
+            super(vector.getNulls());
+            this.values = vector.getValues();
+            this.low = low;
+            this.high = high;
+            this.set = set;
+            this.negate = negate;
+        }
+
+        @Override
+        protected boolean test(int row) {
+            int value = values[row];
+            boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+            return match != negate;
+        }
+
+        @Override
+        int select(int from, int to, int[] out) {
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                int value = values[row];
+                boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+                if (match != negate && !nulls.get(row)) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        int refine(int[] rows, int rowCount, int[] out) {
+            int count = 0;
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                int value = values[row];
+                boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+                if (match != negate && !nulls.get(row)) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Range [low, high] or value set over BIGINT columns
+     */
+    static class LongKernel extends ConditionKernel {
+        private final long[] values;
+        private final long low;
+        private final long high;
+        private final long[] set;
+        private final boolean negate;
+
+        LongKernel(ColumnVector.LongVector vector, long low, long high, long[] set, boolean negate) {
+            super(vector.getNulls());
+            this.values = vector.getValues();
+            this.low = low;
+            this.high = high;
+            this.set = set;
+            this.negate = negate;
+        }
+
+        @Override
+        protected boolean test(int row) {
+            long value = values[row];
+            boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+            return match != negate;
+        }
+
+        @Override
+        int select(int from, int to, int[] out) {
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                long value = values[row];
+                boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+                if (match != negate && !nulls.get(row)) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        int refine(int[] rows, int rowCount, int[] out) {
+            int count = 0;
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                long value = values[row];
+                boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+                if (match != negate && !nulls.get(row)) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Range [low, high] or value set over FLOAT / REAL / DOUBLE columns
+     */
+    static class DoubleKernel extends ConditionKernel {
+        private final double[] values;
+        private final double low;
+        private final double high;
+        private final double[] set;
+        private final boolean negate;
+
+        DoubleKernel(ColumnVector.DoubleVector vector, double low, double high, double[] set, boolean negate) {
+            super(vector.getNulls());
+            this.values = vector.getValues();
+            this.low = low;
+            this.high = high;
+            this.set = set;
+            this.negate = negate;
+        }
+
+        @Override
+        protected boolean test(int row) {
+            double value = values[row];
+            boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+            return match != negate;
+        }
+
+        @Override
+        int select(int from, int to, int[] out) {
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                double value = values[row];
+                boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+                if (match != negate && !nulls.get(row)) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        int refine(int[] rows, int rowCount, int[] out) {
+            int count = 0;
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                double value = values[row];
+                boolean match = set != null ? Arrays.binarySearch(set, value) >= 0 : value >= low && value <= high;
+                if (match != negate && !nulls.get(row)) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Any condition over a dictionary encoded text column: the predicate runs once
+     * per distinct value, rows are then matched by their code
+     */
+    static class DictionaryKernel extends ConditionKernel {
+        private final int[] codes;
+        private final boolean[] matchingCodes;
+
+        DictionaryKernel(ColumnVector.StringVector vector, Predicate<String> predicate) {
+            super(vector.getNulls());
+            this.codes = vector.getCodes();
+            this.matchingCodes = new boolean[vector.getDictionarySize()];
+            for (int code = 0; code < matchingCodes.length; code++) {
+                matchingCodes[code] = predicate.test(vector.getDictionaryValue(code));
+            }
+        }
+
+        /**
+         * Codes already resolved, e.g. through an NGramIndex
+         */
+        DictionaryKernel(ColumnVector.StringVector vector, boolean[] matchingCodes) {
+            super(vector.getNulls());
+            this.codes = vector.getCodes();
+            this.matchingCodes = matchingCodes;
+        }
+
+        @Override
+        protected boolean test(int row) {
+            return matchingCodes[codes[row]];
+        }
+
+        @Override
+        int select(int from, int to, int[] out) {
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                if (!nulls.get(row) && matchingCodes[codes[row]]) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        int refine(int[] rows, int rowCount, int[] out) {
+            int count = 0;
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                if (!nulls.get(row) && matchingCodes[codes[row]]) {
+                    out[count++] = row;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Any condition over a plain text column (one not dictionary encoded): the
+     * predicate runs per row, or the matching rows are already resolved
+     */
+    static class TextKernel extends ConditionKernel {
+        private final String[] values;
+        private final Predicate<String> predicate;
+        private final boolean[] matchingRows;
+
+        TextKernel(ColumnVector.StringVector vector, Predicate<String> predicate) {
+            super(vector.getNulls());
+            this.values = vector.getValues();
+            this.predicate = predicate;
+            this.matchingRows = null;
+        }
+
+        /**
+         * Rows already resolved, e.g. through an NGramIndex
+         */
+        TextKernel(ColumnVector.StringVector vector, boolean[] matchingRows) {
+            super(vector.getNulls());
+            this.values = vector.getValues();
+            this.predicate = null;
+            this.matchingRows = matchingRows;
+        }
+
+        @Override
+        protected boolean test(int row) {
+            return matchingRows != null ? matchingRows[row] : predicate.test(values[row]);
+        }
+    }
+
+    /**
+     * Row by row predicate for columns without a primitive representation (decimals, dates, bits)
+     */
+    static class ObjectKernel extends ConditionKernel {
+        private final ColumnVector vector;
+        private final Predicate<Object> predicate;
+
+        ObjectKernel(ColumnVector vector, Predicate<Object> predicate) {
+            super(vector.getNulls());
+            this.vector = vector;
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected boolean test(int row) {
+            Object value = vector.get(row);
+            return value != null && predicate.test(value);
+        }
+    }
+}
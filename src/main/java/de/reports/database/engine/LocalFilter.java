@@ -0,0 +1,546 @@
+package de.reports.database.engine;
+
+import de.reports.database.ColumnVector;
+import de.reports.database.ColumnarResult;
+import de.reports.database.FilterCondition;
+import de.reports.database.ParameterizedQuery;
+import de.reports.database.TruncatedValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates FilterConditions on columnar data in memory, without a database round trip.
+ *
+ * Conditions are combined like the WHERE clause QueryBuilder generates: AND
+ * binds tighter than OR, so the list is split into OR groups of AND chains.
+ * Each chain runs as a sequence of kernels over a selection vector; the data
+ * is cut into chunks that are evaluated in parallel on the fork-join pool and
+ * joined in row order. Equality and list conditions on low-cardinality
+ * columns that already have a bitmap index are answered from it instead and
+ * combined with AND / OR on the bitmaps; a chain of only such conditions never
+ * touches single rows.
+ * Values are parsed like filter parameters for the database, text compares
+ * case-insensitively like the default collation.
+ */
+public class LocalFilter {
+    private static final int CHUNK_ROWS = 64 * 1024;
+
+    private final List<List<FilterCondition>> orGroups;
+    private final List<String> columnNames;
+
+    private LocalFilter(List<List<FilterCondition>> orGroups, List<String> columnNames) {
+        this.orGroups = orGroups;
+        this.columnNames = Collections.unmodifiableList(columnNames);
+    }
+
+    /**
+     * Prepare the conditions; an empty list matches all rows
+     */
+    public static LocalFilter compile(List<FilterCondition> conditions) {
+        List<List<FilterCondition>> groups = new ArrayList<>();
+        List<String> columns = new ArrayList<>();
+        List<FilterCondition> chain = new ArrayList<>();
+
+        if (conditions != null) {
+            for (int i = 0; i < conditions.size(); i++) {
+                FilterCondition condition = conditions.get(i);
+                if (i > 0 && condition.getLogicalOperator() == FilterCondition.LogicalOperator.OR) {
+                    groups.add(chain);
+                    chain = new ArrayList<>();
+                }
+                chain.add(condition);
+                if (columns.stream().noneMatch(name -> name.equalsIgnoreCase(condition.getColumnName()))) {
+                    columns.add(condition.getColumnName());
+                }
+            }
+        }
+        if (!chain.isEmpty()) {
+            groups.add(chain);
+        }
+        return new LocalFilter(groups, columns);
+    }
+
+    /**
+     * Columns the conditions refer to - the data passed to evaluate() needs at least these
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Ids of the matching rows in ascending order
+     *
+     * @throws IllegalArgumentException if a column is missing or a value does not fit its column
+     */
+    public int[] evaluate(ColumnarResult data) {
+        List<BoundChain> chains = bind(data);
+        RowBitmap bitmap = bitmapOnly(chains, data.getRowCount());
+        return bitmap != null ? bitmap.toArray() : scan(chains, data.getRowCount());
+    }
+
+    /**
+     * Matching rows as a bitmap - the count is its cardinality and a page of rows
+     * can be taken from it without extracting the others
+     */
+    public RowBitmap match(ColumnarResult data) {
+        List<BoundChain> chains = bind(data);
+        RowBitmap bitmap = bitmapOnly(chains, data.getRowCount());
+        if (bitmap != null) {
+            return bitmap;
+        }
+        int[] rows = scan(chains, data.getRowCount());
+        return RowBitmap.of(rows, rows.length);
+    }
+
+    /**
+     * Number of matching rows
+     */
+    public int count(ColumnarResult data) {
+        List<BoundChain> chains = bind(data);
+        RowBitmap bitmap = bitmapOnly(chains, data.getRowCount());
+        return bitmap != null ? bitmap.getCardinality() : scan(chains, data.getRowCount()).length;
+    }
+
+    /**
+     * Result of the filter when every condition was answered by a bitmap index, otherwise null
+     */
+    private static RowBitmap bitmapOnly(List<BoundChain> chains, int rowCount) {
+        if (chains.isEmpty()) {
+            RowBitmap.Builder all = new RowBitmap.Builder();
+            for (int row = 0; row < rowCount; row++) {
+                all.add(row);
+            }
+            return all.build();
+        }
+        RowBitmap result = RowBitmap.empty();
+        for (BoundChain chain : chains) {
+            if (chain.kernels.length > 0) {
+                return null;
+            }
+            result = result.or(chain.rows);
+        }
+        return result;
+    }
+
+    private static int[] scan(List<BoundChain> chains, int rowCount) {
+        int chunkCount = (rowCount + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        int[][] chunks = IntStream.range(0, chunkCount)
+            .parallel()
+            .mapToObj(chunk -> evaluateChunk(chains, chunk * CHUNK_ROWS,
+                Math.min(rowCount, (chunk + 1) * CHUNK_ROWS)))
+            .toArray(int[][]::new);
+
+        int total = 0;
+        for (int[] chunk : chunks) {
+            total += chunk.length;
+        }
+        int[] rows = new int[total];
+        int position = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(chunk, 0, rows, position, chunk.length);
+            position += chunk.length;
+        }
+        return rows;
+    }
+
+    private static int[] evaluateChunk(List<BoundChain> chains, int from, int to) {
+        int[] result = null;
+        int[] selection = new int[to - from];
+
+        for (BoundChain chain : chains) {
+            int count;
+            int next = 0;
+            if (chain.rows != null) {
+                count = chain.rows.select(from, to, selection);
+            } else {
+                count = chain.kernels[0].select(from, to, selection);
+                next = 1;
+            }
+            for (int k = next; k < chain.kernels.length && count > 0; k++) {
+                count = chain.kernels[k].refine(selection, count, selection);
+            }
+            result = result == null ? Arrays.copyOf(selection, count) : union(result, selection, count);
+        }
+        return result;
+    }
+
+    /**
+     * Merge two ascending row id lists without duplicates
+     */
+    private static int[] union(int[] left, int[] right, int rightCount) {
+        int[] merged = new int[left.length + rightCount];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length && j < rightCount) {
+            if (left[i] < right[j]) {
+                merged[count++] = left[i++];
+            } else if (left[i] > right[j]) {
+                merged[count++] = right[j++];
+            } else {
+                merged[count++] = left[i++];
+                j++;
+            }
+        }
+        while (i < left.length) {
+            merged[count++] = left[i++];
+        }
+        while (j < rightCount) {
+            merged[count++] = right[j++];
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    private List<BoundChain> bind(ColumnarResult data) {
+        List<BoundChain> chains = new ArrayList<>();
+        for (List<FilterCondition> conditions : orGroups) {
+            BoundChain chain = new BoundChain();
+            List<ConditionKernel> kernels = new ArrayList<>();
+            for (FilterCondition condition : conditions) {
+                RowBitmap rows = bitmapRows(condition, data);
+                if (rows != null) {
+                    chain.rows = chain.rows == null ? rows : chain.rows.and(rows);
+                } else {
+                    kernels.add(bind(condition, data));
+                }
+            }
+            chain.kernels = kernels.toArray(new ConditionKernel[0]);
+            chains.add(chain);
+        }
+        return chains;
+    }
+
+    /**
+     * Rows of an EQUALS / NOT_EQUALS / IN / NOT_IN condition from the bitmap index of a
+     * low-cardinality column, or null if the condition has to be evaluated by a kernel
+     */
+    private static RowBitmap bitmapRows(FilterCondition condition, ColumnarResult data) {
+        FilterCondition.Operator operator = condition.getOperatorEnum() != null
+            ? condition.getOperatorEnum()
+            : FilterCondition.Operator.EQUALS;
+        if (operator != FilterCondition.Operator.EQUALS && operator != FilterCondition.Operator.NOT_EQUALS
+                && operator != FilterCondition.Operator.IN && operator != FilterCondition.Operator.NOT_IN) {
+            return null;
+        }
+        int column = findColumn(data, condition.getColumnName());
+        if (column < 0) {
+            return null; // bind() reports the missing column
+        }
+        ColumnVector vector = data.getVector(column);
+        BitmapIndex index = BitmapIndex.cached(vector);
+        if (index == null) {
+            return null;
+        }
+
+        int jdbcType = data.getSchema().get(column).getJdbcType();
+        String value = condition.getValue() != null ? condition.getValue() : "";
+        boolean list = operator == FilterCondition.Operator.IN || operator == FilterCondition.Operator.NOT_IN;
+        if (list && value.trim().isEmpty()) {
+            return RowBitmap.empty(); // IN (NULL) / NOT IN (NULL) never match
+        }
+        String[] items = list ? value.split(",") : new String[]{value};
+        Object[] operands = new Object[items.length];
+        for (int i = 0; i < items.length; i++) {
+            operands[i] = parse(items[i], jdbcType, condition);
+        }
+        boolean negate = operator == FilterCondition.Operator.NOT_EQUALS || operator == FilterCondition.Operator.NOT_IN;
+
+        if (vector instanceof ColumnVector.StringVector) {
+            ColumnVector.StringVector strings = (ColumnVector.StringVector) vector;
+            Predicate<Object> matches = comparison(operator, operands);
+            return index.rows(code -> matches.test(strings.getDictionaryValue(code)) != negate);
+        }
+
+        // Integer columns compare like IntKernel / LongKernel
+        long[] set = new long[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            set[i] = ((Number) operands[i]).longValue();
+        }
+        Arrays.sort(set);
+        return index.rows(slot -> Arrays.binarySearch(set, index.getKey(slot)) >= 0 != negate);
+    }
+
+    /**
+     * One AND chain: the rows answered by bitmap indexes (null if none) refined by the kernels
+     */
+    private static class BoundChain {
+        RowBitmap rows;
+        ConditionKernel[] kernels;
+    }
+
+    private static ConditionKernel bind(FilterCondition condition, ColumnarResult data) {
+        int column = findColumn(data, condition.getColumnName());
+        if (column < 0) {
+            throw new IllegalArgumentException("Spalte nicht vorhanden: " + condition.getColumnName());
+        }
+        ColumnVector vector = data.getVector(column);
+        int jdbcType = data.getSchema().get(column).getJdbcType();
+        FilterCondition.Operator operator = condition.getOperatorEnum() != null
+            ? condition.getOperatorEnum()
+            : FilterCondition.Operator.EQUALS;
+        String value = condition.getValue() != null ? condition.getValue() : "";
+
+        switch (operator) {
+            case IS_NULL:
+                return new ConditionKernel.NullKernel(vector.getNulls(), true);
+            case IS_NOT_NULL:
+                return new ConditionKernel.NullKernel(vector.getNulls(), false);
+            case CONTAINS:
+                return textKernel(vector, value, false, false, false);
+            case NOT_CONTAINS:
+                return textKernel(vector, value, false, false, true);
+            case STARTS_WITH:
+                return textKernel(vector, value, true, false, false);
+            case ENDS_WITH:
+                return textKernel(vector, value, false, true, false);
+            case BETWEEN:
+                String[] bounds = value.split(",");
+                if (bounds.length == 2) {
+                    return comparisonKernel(vector, jdbcType, operator,
+                        new Object[]{parse(bounds[0], jdbcType, condition), parse(bounds[1], jdbcType, condition)});
+                }
+                // Like QueryBuilder: anything but two values compares for equality
+                return comparisonKernel(vector, jdbcType, FilterCondition.Operator.EQUALS,
+                    new Object[]{parse(value, jdbcType, condition)});
+            case IN:
+            case NOT_IN:
+                if (value.trim().isEmpty()) {
+                    // IN (NULL) / NOT IN (NULL) never match
+                    return new ConditionKernel.ObjectKernel(vector, row -> false);
+                }
+                String[] items = value.split(",");
+                Object[] operands = new Object[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    operands[i] = parse(items[i], jdbcType, condition);
+                }
+                return comparisonKernel(vector, jdbcType, operator, operands);
+            default:
+                return comparisonKernel(vector, jdbcType, operator, new Object[]{parse(value, jdbcType, condition)});
+        }
+    }
+
+    private static int findColumn(ColumnarResult data, String columnName) {
+        List<String> names = data.getColumnNames();
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Filter value as the Java type of the column, the same conversion as for a bound parameter
+     */
+    private static Object parse(String text, int jdbcType, FilterCondition condition) {
+        ParameterizedQuery.Parameter parameter = ParameterizedQuery.Parameter.fromText(text.trim(), jdbcType);
+        Object value = parameter.getValue();
+        ColumnVector probe = ColumnVector.forJdbcType(jdbcType);
+        boolean numericColumn = probe instanceof ColumnVector.IntVector || probe instanceof ColumnVector.LongVector
+            || probe instanceof ColumnVector.DoubleVector;
+        if (numericColumn && !(value instanceof Number)) {
+            throw new IllegalArgumentException("Ungültiger Wert für " + condition.getColumnName() + ": " + text.trim());
+        }
+        return value;
+    }
+
+    private static ConditionKernel textKernel(ColumnVector vector, String value,
+                                              boolean atStart, boolean atEnd, boolean negate) {
+        Predicate<String> matcher = TextMatcher.like((atStart ? "" : "%") + value + (atEnd ? "" : "%"));
+        Predicate<String> predicate = negate ? matcher.negate() : matcher;
+        if (vector instanceof ColumnVector.StringVector) {
+            ColumnVector.StringVector strings = (ColumnVector.StringVector) vector;
+            boolean[] matchingEntries = indexLookup(strings, value, atStart, atEnd, matcher);
+            if (matchingEntries != null) {
+                if (negate) {
+                    for (int entry = 0; entry < matchingEntries.length; entry++) {
+                        matchingEntries[entry] = !matchingEntries[entry];
+                    }
+                }
+                return strings.isDictionaryEncoded()
+                    ? new ConditionKernel.DictionaryKernel(strings, matchingEntries)
+                    : new ConditionKernel.TextKernel(strings, matchingEntries);
+            }
+            return textKernel(strings, predicate);
+        }
+        // LIKE on other types compares their text form
+        return new ConditionKernel.ObjectKernel(vector, cell -> predicate.test(textOf(cell)));
+    }
+
+    private static ConditionKernel textKernel(ColumnVector.StringVector vector, Predicate<String> predicate) {
+        return vector.isDictionaryEncoded()
+            ? new ConditionKernel.DictionaryKernel(vector, predicate)
+            : new ConditionKernel.TextKernel(vector, predicate);
+    }
+
+    /**
+     * Matching entries (dictionary codes or rows) from the trigram index, or null to test every value.
+     * Only an index that was built already is used (see TableSnapshot.buildTextIndexes); building one
+     * for a vector that is dropped after this filter costs more than the scan.
+     */
+    private static boolean[] indexLookup(ColumnVector.StringVector vector, String value,
+                                         boolean atStart, boolean atEnd, Predicate<String> matcher) {
+        if (value.indexOf('%') >= 0 || value.indexOf('_') >= 0) {
+            return null;
+        }
+        NGramIndex index = NGramIndex.cached(vector);
+        return index != null ? index.match(value, atStart, atEnd, vector, matcher) : null;
+    }
+
+    private static ConditionKernel comparisonKernel(ColumnVector vector, int jdbcType,
+                                                    FilterCondition.Operator operator, Object[] operands) {
+        boolean negate = operator == FilterCondition.Operator.NOT_EQUALS || operator == FilterCondition.Operator.NOT_IN;
+
+        if (vector instanceof ColumnVector.IntVector || vector instanceof ColumnVector.LongVector) {
+            long[] set = null;
+            long low = Long.MIN_VALUE;
+            long high = Long.MAX_VALUE;
+            switch (operator) {
+                case IN:
+                case NOT_IN:
+                    set = new long[operands.length];
+                    for (int i = 0; i < operands.length; i++) {
+                        set[i] = ((Number) operands[i]).longValue();
+                    }
+                    Arrays.sort(set);
+                    break;
+                case BETWEEN:
+                    low = ((Number) operands[0]).longValue();
+                    high = ((Number) operands[1]).longValue();
+                    break;
+                default:
+                    long operand = ((Number) operands[0]).longValue();
+                    switch (operator) {
+                        case GREATER_THAN:
+                            low = operand == Long.MAX_VALUE ? 1 : operand + 1;
+                            high = operand == Long.MAX_VALUE ? 0 : high;
+                            break;
+                        case GREATER_THAN_OR_EQUAL: low = operand; break;
+                        case LESS_THAN:
+                            high = operand == Long.MIN_VALUE ? -1 : operand - 1;
+                            low = operand == Long.MIN_VALUE ? 0 : low;
+                            break;
+                        case LESS_THAN_OR_EQUAL: high = operand; break;
+                        default: low = operand; high = operand; break;
+                    }
+            }
+            if (vector instanceof ColumnVector.IntVector) {
+                return new ConditionKernel.IntKernel((ColumnVector.IntVector) vector, low, high, set, negate);
+            }
+            return new ConditionKernel.LongKernel((ColumnVector.LongVector) vector, low, high, set, negate);
+        }
+
+        if (vector instanceof ColumnVector.DoubleVector) {
+            double[] set = null;
+            double low = Double.NEGATIVE_INFINITY;
+            double high = Double.POSITIVE_INFINITY;
+            switch (operator) {
+                case IN:
+                case NOT_IN:
+                    set = new double[operands.length];
+                    for (int i = 0; i < operands.length; i++) {
+                        set[i] = ((Number) operands[i]).doubleValue();
+                    }
+                    Arrays.sort(set);
+                    break;
+                case BETWEEN:
+                    low = ((Number) operands[0]).doubleValue();
+                    high = ((Number) operands[1]).doubleValue();
+                    break;
+                default:
+                    double operand = ((Number) operands[0]).doubleValue();
+                    switch (operator) {
+                        case GREATER_THAN: low = Math.nextUp(operand); break;
+                        case GREATER_THAN_OR_EQUAL: low = operand; break;
+                        case LESS_THAN: high = Math.nextDown(operand); break;
+                        case LESS_THAN_OR_EQUAL: high = operand; break;
+                        default: low = operand; high = operand; break;
+                    }
+            }
+            return new ConditionKernel.DoubleKernel((ColumnVector.DoubleVector) vector, low, high, set, negate);
+        }
+
+        Predicate<Object> matches = comparison(operator, operands);
+        Predicate<Object> predicate = negate ? matches.negate() : matches;
+        if (vector instanceof ColumnVector.StringVector) {
+            return textKernel((ColumnVector.StringVector) vector, predicate::test);
+        }
+        return new ConditionKernel.ObjectKernel(vector, predicate);
+    }
+
+    /**
+     * Positive form of a comparison for text and object columns (negation is applied by the caller)
+     */
+    private static Predicate<Object> comparison(FilterCondition.Operator operator, Object[] operands) {
+        switch (operator) {
+            case IN:
+            case NOT_IN:
+                return value -> {
+                    for (Object operand : operands) {
+                        if (compare(value, operand) == 0) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            case BETWEEN:
+                return value -> compare(value, operands[0]) >= 0 && compare(value, operands[1]) <= 0;
+            case GREATER_THAN:
+                return value -> compare(value, operands[0]) > 0;
+            case GREATER_THAN_OR_EQUAL:
+                return value -> compare(value, operands[0]) >= 0;
+            case LESS_THAN:
+                return value -> compare(value, operands[0]) < 0;
+            case LESS_THAN_OR_EQUAL:
+                return value -> compare(value, operands[0]) <= 0;
+            default:
+                return value -> compare(value, operands[0]) == 0;
+        }
+    }
+
+    /**
+     * Compare a column value with a filter operand: numbers by value, dates by
+     * time, booleans as bits, everything else as text
+     */
+    private static int compare(Object value, Object operand) {
+        if (operand == null) {
+            return -1;
+        }
+        if (value instanceof Number && operand instanceof Number) {
+            return toDecimal((Number) value).compareTo(toDecimal((Number) operand));
+        }
+        if (value instanceof java.util.Date && operand instanceof java.util.Date) {
+            if (value instanceof java.sql.Timestamp && operand instanceof java.sql.Timestamp) {
+                return ((java.sql.Timestamp) value).compareTo((java.sql.Timestamp) operand);
+            }
+            return Long.compare(((java.util.Date) value).getTime(), ((java.util.Date) operand).getTime());
+        }
+        if (value instanceof Boolean && operand instanceof Boolean) {
+            return Boolean.compare((Boolean) value, (Boolean) operand);
+        }
+        return TextMatcher.normalize(textOf(value)).compareTo(TextMatcher.normalize(textOf(operand)));
+    }
+
+    private static BigDecimal toDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    private static String textOf(Object value) {
+        if (value instanceof TruncatedValue) {
+            return String.valueOf(((TruncatedValue) value).getPrefix());
+        }
+        return value.toString();
+    }
+}
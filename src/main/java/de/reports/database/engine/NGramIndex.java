@@ -0,0 +1,187 @@
+package de.reports.database.engine;
+
+import de.reports.database.ColumnVector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Trigram index over the entries of a text column: the dictionary of a
+ * dictionary encoded column, the rows of a plain one.
+ *
+ * Every entry is split into overlapping three-character grams of its
+ * normalized text, padded with a start and an end marker so prefixes and
+ * suffixes have grams of their own. A CONTAINS / STARTS_WITH / ENDS_WITH
+ * search intersects the posting lists (entry numbers) of the search text's
+ * grams and only checks the remaining candidates, instead of testing every
+ * entry. Rows are then matched by code or row id as usual.
+ *
+ * Indexes are kept per column vector while the vector is alive.
+ */
+public class NGramIndex {
+    private static final int N = 3;
+    private static final char START = '\u0002';
+    private static final char END = '\u0003';
+    private static final Map<ColumnVector.StringVector, NGramIndex> INDEXES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int entryCount;
+    private final Map<Long, int[]> postings;
+
+    private NGramIndex(int entryCount, Map<Long, int[]> postings) {
+        this.entryCount = entryCount;
+        this.postings = postings;
+    }
+
+    /**
+     * Index of the column, built now if it does not exist yet
+     */
+    public static NGramIndex of(ColumnVector.StringVector vector) {
+        NGramIndex index = INDEXES.get(vector);
+        if (index == null) {
+            index = build(vector);
+            INDEXES.put(vector, index);
+        }
+        return index;
+    }
+
+    /**
+     * Index of the column if one was built, otherwise null
+     */
+    public static NGramIndex cached(ColumnVector.StringVector vector) {
+        return INDEXES.get(vector);
+    }
+
+    private static NGramIndex build(ColumnVector.StringVector vector) {
+        int entryCount = entryCount(vector);
+        Map<Long, int[]> lists = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        Set<Long> grams = new HashSet<>();
+
+        // Entries are visited in ascending order, so every posting list ends up sorted
+        for (int entry = 0; entry < entryCount; entry++) {
+            String value = entry(vector, entry);
+            if (value == null) {
+                continue; // NULL row of a plain column
+            }
+            grams.clear();
+            addGrams(padded(value), grams);
+            for (long gram : grams) {
+                int[] list = lists.get(gram);
+                int size = sizes.getOrDefault(gram, 0);
+                if (list == null) {
+                    list = new int[4];
+                } else if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                }
+                list[size] = entry;
+                lists.put(gram, list);
+                sizes.put(gram, size + 1);
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, int[]> entry : lists.entrySet()) {
+            postings.put(entry.getKey(), Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())));
+        }
+        return new NGramIndex(entryCount, postings);
+    }
+
+    private static int entryCount(ColumnVector.StringVector vector) {
+        return vector.isDictionaryEncoded() ? vector.getDictionarySize() : vector.size();
+    }
+
+    private static String entry(ColumnVector.StringVector vector, int entry) {
+        return vector.isDictionaryEncoded() ? vector.getDictionaryValue(entry) : vector.getString(entry);
+    }
+
+    /**
+     * Entries (dictionary codes, or rows of a plain column) whose value matches, or null if the search text is too short to
+     * use the index (the caller then tests every value)
+     *
+     * @param text    search text without wildcards
+     * @param atStart value must start with the text
+     * @param atEnd   value must end with the text
+     * @param matcher exact test applied to the candidates
+     */
+    public boolean[] match(String text, boolean atStart, boolean atEnd,
+                           ColumnVector.StringVector vector, Predicate<String> matcher) {
+        String search = TextMatcher.normalize(text);
+        if (atStart) {
+            search = START + search;
+        }
+        if (atEnd) {
+            search = search + END;
+        }
+
+        Set<Long> grams = new HashSet<>();
+        addGrams(search, grams);
+        if (grams.isEmpty()) {
+            return null;
+        }
+
+        int[] candidates = null;
+        for (long gram : grams) {
+            int[] list = postings.get(gram);
+            if (list == null) {
+                return new boolean[entryCount(vector)]; // a gram nobody has
+            }
+            candidates = candidates == null ? list : intersect(candidates, list);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+
+        boolean[] matches = new boolean[entryCount(vector)];
+        for (int entry : candidates) {
+            if (entry < entryCount && matcher.test(entry(vector, entry))) {
+                matches[entry] = true;
+            }
+        }
+        // Values added after the index was built are not in the posting lists
+        for (int entry = entryCount; entry < matches.length; entry++) {
+            String value = entry(vector, entry);
+            matches[entry] = value != null && matcher.test(value);
+        }
+        return matches;
+    }
+
+    private static String padded(String value) {
+        return START + TextMatcher.normalize(value) + END;
+    }
+
+    private static void addGrams(String text, Set<Long> grams) {
+        for (int i = 0; i + N <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public int getGramCount() {
+        return postings.size();
+    }
+}
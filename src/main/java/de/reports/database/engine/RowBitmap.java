@@ -0,0 +1,391 @@
+package de.reports.database.engine;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of row ids, organised like a Roaring bitmap.
+ *
+ * Row ids are split into their upper and lower 16 bits. Each block of 65536
+ * rows that contains at least one row has a container: a sorted array of the
+ * lower bits while it holds at most 4096 rows, a plain 65536 bit map above
+ * that. Sparse sets stay small, dense sets cost 8 KB per block, and AND / OR
+ * work container by container without touching single rows where possible.
+ *
+ * Instances are immutable; and() / or() return new bitmaps.
+ */
+public final class RowBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+    private static final RowBitmap EMPTY = new RowBitmap(new char[0], new Object[0], new int[0]);
+
+    /** upper 16 bits of the rows in each container, ascending */
+    private final char[] keys;
+    /** char[] (sorted lower bits) or long[WORDS] (bit map) */
+    private final Object[] containers;
+    private final int[] cardinalities;
+    private final int cardinality;
+
+    private RowBitmap(char[] keys, Object[] containers, int[] cardinalities) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinalities = cardinalities;
+        int total = 0;
+        for (int count : cardinalities) {
+            total += count;
+        }
+        this.cardinality = total;
+    }
+
+    public static RowBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Bitmap of ascending, distinct row ids
+     */
+    public static RowBitmap of(int[] rows, int count) {
+        Builder builder = new Builder();
+        for (int i = 0; i < count; i++) {
+            builder.add(rows[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Number of rows in the set, without visiting them
+     */
+    public int getCardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * All row ids in ascending order
+     */
+    public int[] toArray() {
+        return toArray(0, cardinality);
+    }
+
+    /**
+     * Row ids at the positions [from, from + max) of the ascending order - one page
+     * of the set without extracting the rows before it
+     */
+    public int[] toArray(int from, int max) {
+        int end = Math.min(cardinality, from + max);
+        if (from >= end) {
+            return new int[0];
+        }
+        int[] rows = new int[end - from];
+        int count = 0;
+        int skipped = 0;
+        for (int c = 0; c < keys.length && count < rows.length; c++) {
+            if (skipped + cardinalities[c] <= from) {
+                skipped += cardinalities[c];
+                continue;
+            }
+            int base = keys[c] << 16;
+            int skip = Math.max(0, from - skipped);
+            skipped += cardinalities[c];
+            if (containers[c] instanceof char[]) {
+                char[] values = (char[]) containers[c];
+                for (int i = skip; i < values.length && count < rows.length; i++) {
+                    rows[count++] = base | values[i];
+                }
+            } else {
+                long[] words = (long[]) containers[c];
+                for (int w = 0; w < WORDS && count < rows.length; w++) {
+                    long word = words[w];
+                    while (word != 0 && count < rows.length) {
+                        if (skip > 0) {
+                            skip--;
+                        } else {
+                            rows[count++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Write the rows of [from, to) into out in ascending order
+     *
+     * @return number of rows written
+     */
+    public int select(int from, int to, int[] out) {
+        int count = 0;
+        for (int c = 0; c < keys.length; c++) {
+            int base = keys[c] << 16;
+            if (base + 0xFFFF < from) {
+                continue;
+            }
+            if (base >= to) {
+                break;
+            }
+            if (containers[c] instanceof char[]) {
+                for (char low : (char[]) containers[c]) {
+                    int row = base | low;
+                    if (row >= from && row < to) {
+                        out[count++] = row;
+                    }
+                }
+            } else {
+                long[] words = (long[]) containers[c];
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        int row = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                        if (row >= from && row < to) {
+                            out[count++] = row;
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rows contained in both sets
+     */
+    public RowBitmap and(RowBitmap other) {
+        Builder result = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.addContainer(keys[i], and(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Rows contained in either set
+     */
+    public RowBitmap or(RowBitmap other) {
+        Builder result = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j >= other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                result.addContainer(keys[i], containers[i]);
+                i++;
+            } else if (i >= keys.length || keys[i] > other.keys[j]) {
+                result.addContainer(other.keys[j], other.containers[j]);
+                j++;
+            } else {
+                result.addContainer(keys[i], or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result.build();
+    }
+
+    private static Object and(Object left, Object right) {
+        if (left instanceof char[] && right instanceof char[]) {
+            char[] a = (char[]) left;
+            char[] b = (char[]) right;
+            char[] result = new char[Math.min(a.length, b.length)];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        if (left instanceof char[] || right instanceof char[]) {
+            char[] values = (char[]) (left instanceof char[] ? left : right);
+            long[] words = (long[]) (left instanceof char[] ? right : left);
+            char[] result = new char[values.length];
+            int count = 0;
+            for (char value : values) {
+                if ((words[value >>> 6] & (1L << value)) != 0) {
+                    result[count++] = value;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        long[] a = (long[]) left;
+        long[] b = (long[]) right;
+        long[] words = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            words[w] = a[w] & b[w];
+        }
+        return words;
+    }
+
+    private static Object or(Object left, Object right) {
+        if (left instanceof char[] && right instanceof char[]
+                && ((char[]) left).length + ((char[]) right).length <= ARRAY_MAX) {
+            char[] a = (char[]) left;
+            char[] b = (char[]) right;
+            char[] result = new char[a.length + b.length];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < a.length || j < b.length) {
+                if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                    result[count++] = a[i++];
+                } else if (i >= a.length || a[i] > b[j]) {
+                    result[count++] = b[j++];
+                } else {
+                    result[count++] = a[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        long[] words = toWords(left);
+        if (right instanceof char[]) {
+            for (char value : (char[]) right) {
+                words[value >>> 6] |= 1L << value;
+            }
+        } else {
+            long[] other = (long[]) right;
+            for (int w = 0; w < WORDS; w++) {
+                words[w] |= other[w];
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Writable bit map copy of a container
+     */
+    private static long[] toWords(Object container) {
+        if (container instanceof long[]) {
+            return ((long[]) container).clone();
+        }
+        long[] words = new long[WORDS];
+        for (char value : (char[]) container) {
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    private static int cardinality(Object container) {
+        if (container instanceof char[]) {
+            return ((char[]) container).length;
+        }
+        int count = 0;
+        for (long word : (long[]) container) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Collects ascending row ids (or whole containers in key order) into a bitmap
+     */
+    public static class Builder {
+        private char[] keys = new char[4];
+        private Object[] containers = new Object[4];
+        private int[] cardinalities = new int[4];
+        private int size;
+
+        private int currentKey = -1;
+        private char[] values = new char[16];
+        private long[] words;
+        private int valueCount;
+
+        /**
+         * Add a row; rows must be added in ascending order
+         */
+        public Builder add(int row) {
+            int key = row >>> 16;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            char low = (char) row;
+            if (words != null) {
+                words[low >>> 6] |= 1L << low;
+            } else if (valueCount < ARRAY_MAX) {
+                if (valueCount == values.length) {
+                    values = Arrays.copyOf(values, valueCount * 2);
+                }
+                values[valueCount] = low;
+            } else {
+                words = toWords(Arrays.copyOf(values, valueCount));
+                words[low >>> 6] |= 1L << low;
+            }
+            valueCount++;
+            return this;
+        }
+
+        private void addContainer(char key, Object container) {
+            int count = cardinality(container);
+            if (count == 0) {
+                return;
+            }
+            if (container instanceof long[] && count <= ARRAY_MAX) {
+                container = toValues((long[]) container, count);
+            } else if (container instanceof char[] && count > ARRAY_MAX) {
+                container = toWords(container);
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+                cardinalities = Arrays.copyOf(cardinalities, size * 2);
+            }
+            keys[size] = key;
+            containers[size] = container;
+            cardinalities[size] = count;
+            size++;
+        }
+
+        private void flush() {
+            if (currentKey >= 0 && valueCount > 0) {
+                addContainer((char) currentKey, words != null ? words : Arrays.copyOf(values, valueCount));
+            }
+            words = null;
+            valueCount = 0;
+        }
+
+        public RowBitmap build() {
+            flush();
+            currentKey = -1;
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new RowBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size),
+                Arrays.copyOf(cardinalities, size));
+        }
+
+        private static char[] toValues(long[] words, int count) {
+            char[] values = new char[count];
+            int position = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[position++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package de.reports.database.engine;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Text comparison with the semantics of the default SQL Server collation:
+ * case-insensitive, trailing blanks ignored, LIKE with % and _ wildcards.
+ */
+final class TextMatcher {
+
+    private TextMatcher() {
+    }
+
+    /**
+     * Form in which two texts compare equal when the database considers them equal
+     */
+    static String normalize(String text) {
+        return text.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Matcher for a LIKE pattern. Patterns that only have % at their ends (the
+     * usual CONTAINS / STARTS_WITH / ENDS_WITH case) avoid the regex engine.
+     */
+    static Predicate<String> like(String pattern) {
+        String lower = pattern.toLowerCase(Locale.ROOT);
+        boolean leading = lower.startsWith("%");
+        boolean trailing = lower.length() > (leading ? 1 : 0) && lower.endsWith("%");
+        String core = lower.substring(leading ? 1 : 0, lower.length() - (trailing ? 1 : 0));
+
+        if (core.indexOf('%') < 0 && core.indexOf('_') < 0) {
+            if (leading && trailing) {
+                return text -> text.toLowerCase(Locale.ROOT).contains(core);
+            } else if (trailing) {
+                return text -> text.toLowerCase(Locale.ROOT).startsWith(core);
+            } else if (leading) {
+                return text -> text.toLowerCase(Locale.ROOT).stripTrailing().endsWith(core);
+            }
+            return text -> normalize(text).equals(core);
+        }
+
+        Pattern regex = Pattern.compile(toRegex(lower), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+        return text -> regex.matcher(text.stripTrailing()).matches();
+    }
+
+    private static String toRegex(String likePattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : likePattern.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.toString();
+    }
+}
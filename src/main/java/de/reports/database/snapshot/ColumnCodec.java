@@ -0,0 +1,273 @@
+package de.reports.database.snapshot;
+
+import de.reports.database.ColumnVector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoding of one column segment in a snapshot file.
+ *
+ * The kind follows ColumnVector.forJdbcType(), so a decoded segment fills the
+ * same vector type a query would have produced. Text is dictionary encoded
+ * while it is written: a value is stored once per block and then referenced by
+ * its code, which keeps repetitive columns small even before compression.
+ */
+final class ColumnCodec {
+    static final byte KIND_INT = 1;
+    static final byte KIND_LONG = 2;
+    static final byte KIND_DOUBLE = 3;
+    static final byte KIND_STRING = 4;
+    static final byte KIND_OBJECT = 5;
+
+    // Value tags of OBJECT columns
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_DECIMAL = 2;
+    private static final byte TAG_TIMESTAMP = 3;
+    private static final byte TAG_DATE = 4;
+    private static final byte TAG_TIME = 5;
+    private static final byte TAG_BYTES = 6;
+    private static final byte TAG_BOOLEAN = 7;
+    private static final byte TAG_LONG = 8;
+    private static final byte TAG_DOUBLE = 9;
+
+    private ColumnCodec() {
+    }
+
+    static byte kindOf(int jdbcType) {
+        ColumnVector vector = ColumnVector.forJdbcType(jdbcType);
+        if (vector instanceof ColumnVector.IntVector) {
+            return KIND_INT;
+        } else if (vector instanceof ColumnVector.LongVector) {
+            return KIND_LONG;
+        } else if (vector instanceof ColumnVector.DoubleVector) {
+            return KIND_DOUBLE;
+        } else if (vector instanceof ColumnVector.StringVector) {
+            return KIND_STRING;
+        }
+        return KIND_OBJECT;
+    }
+
+    /**
+     * Writes the values of one column; holds the text dictionary of the current block
+     */
+    static class Encoder {
+        private final byte kind;
+        private final DataOutput out;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        Encoder(byte kind, DataOutput out) {
+            this.kind = kind;
+            this.out = out;
+        }
+
+        /**
+         * Start a new block: codes written from now on do not refer to earlier values
+         */
+        void reset() {
+            dictionary.clear();
+        }
+
+        void write(Object value) throws IOException {
+            switch (kind) {
+                case KIND_INT:
+                    out.writeBoolean(value != null);
+                    if (value != null) {
+                        out.writeInt(((Number) value).intValue());
+                    }
+                    break;
+                case KIND_LONG:
+                    out.writeBoolean(value != null);
+                    if (value != null) {
+                        out.writeLong(((Number) value).longValue());
+                    }
+                    break;
+                case KIND_DOUBLE:
+                    out.writeBoolean(value != null);
+                    if (value != null) {
+                        out.writeDouble(((Number) value).doubleValue());
+                    }
+                    break;
+                case KIND_STRING:
+                    writeText(value);
+                    break;
+                default:
+                    writeObject(value);
+            }
+        }
+
+        private void writeText(Object value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            String text = value.toString();
+            Integer code = dictionary.get(text);
+            if (code != null) {
+                out.writeInt(code);
+                return;
+            }
+            // New value: the next code, followed by the text itself
+            code = dictionary.size();
+            dictionary.put(text, code);
+            out.writeInt(code);
+            writeString(out, text);
+        }
+
+        private void writeObject(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(TAG_NULL);
+            } else if (value instanceof BigDecimal) {
+                out.writeByte(TAG_DECIMAL);
+                writeString(out, ((BigDecimal) value).toString());
+            } else if (value instanceof Timestamp) {
+                out.writeByte(TAG_TIMESTAMP);
+                out.writeLong(((Timestamp) value).getTime());
+                out.writeInt(((Timestamp) value).getNanos());
+            } else if (value instanceof Date) {
+                out.writeByte(TAG_DATE);
+                out.writeLong(((Date) value).getTime());
+            } else if (value instanceof Time) {
+                out.writeByte(TAG_TIME);
+                out.writeLong(((Time) value).getTime());
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                out.writeByte(TAG_BYTES);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } else if (value instanceof Boolean) {
+                out.writeByte(TAG_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                out.writeByte(TAG_LONG);
+                out.writeLong(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else {
+                // Driver specific types (e.g. DateTimeOffset) are kept as their text
+                out.writeByte(TAG_STRING);
+                writeString(out, value.toString());
+            }
+        }
+    }
+
+    /**
+     * Read rowCount values of one block and append them to the vector of the column type
+     */
+    static void decode(DataInput in, byte kind, int rowCount, ColumnVector vector) throws IOException {
+        switch (kind) {
+            case KIND_INT: {
+                ColumnVector.IntVector ints = (ColumnVector.IntVector) vector;
+                for (int row = 0; row < rowCount; row++) {
+                    if (in.readBoolean()) {
+                        ints.appendInt(in.readInt());
+                    } else {
+                        ints.appendValue(null);
+                    }
+                }
+                break;
+            }
+            case KIND_LONG: {
+                ColumnVector.LongVector longs = (ColumnVector.LongVector) vector;
+                for (int row = 0; row < rowCount; row++) {
+                    if (in.readBoolean()) {
+                        longs.appendLong(in.readLong());
+                    } else {
+                        longs.appendValue(null);
+                    }
+                }
+                break;
+            }
+            case KIND_DOUBLE: {
+                ColumnVector.DoubleVector doubles = (ColumnVector.DoubleVector) vector;
+                for (int row = 0; row < rowCount; row++) {
+                    if (in.readBoolean()) {
+                        doubles.appendDouble(in.readDouble());
+                    } else {
+                        doubles.appendValue(null);
+                    }
+                }
+                break;
+            }
+            case KIND_STRING: {
+                List<String> dictionary = new ArrayList<>();
+                for (int row = 0; row < rowCount; row++) {
+                    int code = in.readInt();
+                    if (code < 0) {
+                        vector.appendValue(null);
+                        continue;
+                    }
+                    if (code == dictionary.size()) {
+                        dictionary.add(readString(in));
+                    }
+                    vector.appendValue(dictionary.get(code));
+                }
+                break;
+            }
+            default:
+                for (int row = 0; row < rowCount; row++) {
+                    vector.appendValue(readObject(in));
+                }
+        }
+    }
+
+    private static Object readObject(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case TAG_TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            }
+            case TAG_DATE:
+                return new Date(in.readLong());
+            case TAG_TIME:
+                return new Time(in.readLong());
+            case TAG_BYTES: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_STRING:
+                return readString(in);
+            default:
+                throw new IOException("Unknown value tag in snapshot: " + tag);
+        }
+    }
+
+    // writeUTF is limited to 64 KB, text columns are not
+    private static void writeString(DataOutput out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,238 @@
+package de.reports.database.snapshot;
+
+import de.reports.database.DatabaseConnectionInfo;
+import de.reports.database.DatabaseManager;
+import de.reports.database.QueryCursor;
+import de.reports.database.QueryHandle;
+import de.reports.utils.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Local snapshots of tables, one directory per database under the app data directory.
+ *
+ * A snapshot is captured once with a streaming read and then serves preview
+ * and filtering without touching the database. Refreshing applies only the
+ * changed rows where SQL Server change tracking or a rowversion column allows
+ * it (see SnapshotSync) and reads the whole table otherwise. Each refresh writes a new file
+ * named after its capture time; older files are removed once they are no
+ * longer mapped (on Windows a mapped file cannot be deleted until it is
+ * garbage collected, so leftovers are cleaned up on a later refresh).
+ */
+public class SnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+    private static final String EXTENSION = ".snap";
+
+    private final Path directory;
+    private final Map<String, TableSnapshot> openSnapshots = new ConcurrentHashMap<>();
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Store for the database of the given connection
+     */
+    public static SnapshotStore forConnection(DatabaseConnectionInfo connectionInfo) {
+        String database = connectionInfo.getHost() + "_" + connectionInfo.getPort() + "_" + connectionInfo.getDatabase();
+        return new SnapshotStore(Paths.get(FileUtils.getAppDataDirectory(), "snapshots",
+            FileUtils.getSafeFileName(database)));
+    }
+
+    /**
+     * Whether a snapshot of the table exists
+     */
+    public boolean hasSnapshot(String tableName) {
+        return openSnapshots.containsKey(key(tableName)) || !snapshotFiles(tableName).isEmpty();
+    }
+
+    /**
+     * Newest snapshot of the table, or null if none was captured yet
+     */
+    public TableSnapshot open(String tableName) throws IOException {
+        TableSnapshot snapshot = openSnapshots.get(key(tableName));
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        List<Path> files = snapshotFiles(tableName);
+        if (files.isEmpty()) {
+            return null;
+        }
+        snapshot = TableSnapshot.open(files.get(files.size() - 1));
+        openSnapshots.put(key(tableName), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Read the whole table once and store it as a new snapshot; replaces the previous one
+     *
+     * @param progress receives the number of rows read so far
+     */
+    public TableSnapshot capture(DatabaseManager databaseManager, String tableName, QueryHandle handle,
+                                 LongConsumer progress) throws SQLException, IOException {
+        Files.createDirectories(directory);
+        long capturedAt = System.currentTimeMillis();
+        Path target = directory.resolve(fileName(tableName) + "-" + capturedAt + EXTENSION);
+        Path partial = directory.resolve(target.getFileName() + ".part");
+
+        // Before the read, so changes made while reading are applied by the next refresh.
+        // This runs before every full capture: a login without rights on change tracking
+        // or rowversion still gets its snapshot, only without incremental refresh
+        SyncState sync;
+        try {
+            sync = SnapshotSync.detect(databaseManager, tableName);
+        } catch (SQLException e) {
+            logger.warn("Failed to detect change source of {}, snapshots are refreshed by full read", tableName, e);
+            sync = SyncState.none();
+        }
+        long rows;
+        try (QueryCursor cursor = databaseManager.openCursor("SELECT * FROM " + tableName, 0)) {
+            rows = SnapshotWriter.write(cursor, tableName, capturedAt, sync, partial, handle, progress);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        TableSnapshot snapshot = TableSnapshot.open(target);
+        openSnapshots.put(key(tableName), snapshot);
+        deleteOlderFiles(tableName, target);
+        logger.info("Snapshot of {} captured: {} rows, {} KB, refresh {}", tableName, rows,
+            Files.size(target) / 1024, sync.getMode());
+        return snapshot;
+    }
+
+    /**
+     * Bring the snapshot of the table up to date: only the rows changed since it was
+     * taken if the table has a change source, otherwise (or without a snapshot) a full capture
+     *
+     * @param progress receives the number of rows written so far
+     */
+    public RefreshResult refresh(DatabaseManager databaseManager, String tableName, QueryHandle handle,
+                                 LongConsumer progress) throws SQLException, IOException {
+        TableSnapshot current = open(tableName);
+        if (current != null && current.getSyncState().getMode() != SyncState.Mode.NONE) {
+            long capturedAt = System.currentTimeMillis();
+            Path target = directory.resolve(fileName(tableName) + "-" + capturedAt + EXTENSION);
+            Path partial = directory.resolve(target.getFileName() + ".part");
+            try {
+                SnapshotSync.Result result = SnapshotSync.refresh(databaseManager, current, capturedAt, partial,
+                    handle, progress);
+                if (result != null && !result.written) {
+                    return new RefreshResult(current, true, 0, 0);
+                }
+                if (result != null) {
+                    Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+                    TableSnapshot snapshot = TableSnapshot.open(target);
+                    openSnapshots.put(key(tableName), snapshot);
+                    deleteOlderFiles(tableName, target);
+                    logger.info("Snapshot of {} refreshed: {} changed, {} deleted rows", tableName,
+                        result.changedRows, result.deletedRows);
+                    return new RefreshResult(snapshot, true, result.changedRows, result.deletedRows);
+                }
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            logger.info("Incremental refresh of {} not possible, reading the whole table", tableName);
+        }
+
+        TableSnapshot snapshot = capture(databaseManager, tableName, handle, progress);
+        return new RefreshResult(snapshot, false, snapshot.getRowCount(), 0);
+    }
+
+    /**
+     * Remove all snapshot files of the table
+     */
+    public void delete(String tableName) {
+        openSnapshots.remove(key(tableName));
+        deleteOlderFiles(tableName, null);
+    }
+
+    private void deleteOlderFiles(String tableName, Path keep) {
+        for (Path file : snapshotFiles(tableName)) {
+            if (file.equals(keep)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.debug("Old snapshot still in use, removed later: {}", file);
+            }
+        }
+    }
+
+    /**
+     * Snapshot files of the table, oldest first
+     */
+    private List<Path> snapshotFiles(String tableName) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, fileName(tableName) + "-*" + EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list snapshots in {}", directory, e);
+        }
+        files.sort((a, b) -> Long.compare(captureTimeOf(a), captureTimeOf(b)));
+        return files;
+    }
+
+    private static long captureTimeOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(name.lastIndexOf('-') + 1, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String fileName(String tableName) {
+        return FileUtils.getSafeFileName(tableName.toLowerCase()).replace('-', '_');
+    }
+
+    private static String key(String tableName) {
+        return tableName.toLowerCase();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Snapshot after a refresh and what the refresh transferred
+     */
+    public static class RefreshResult {
+        private final TableSnapshot snapshot;
+        private final boolean incremental;
+        private final int changedRows;
+        private final int deletedRows;
+
+        public RefreshResult(TableSnapshot snapshot, boolean incremental, int changedRows, int deletedRows) {
+            this.snapshot = snapshot;
+            this.incremental = incremental;
+            this.changedRows = changedRows;
+            this.deletedRows = deletedRows;
+        }
+
+        public TableSnapshot getSnapshot() { return snapshot; }
+        public boolean isIncremental() { return incremental; }
+        public int getChangedRows() { return changedRows; }
+        public int getDeletedRows() { return deletedRows; }
+    }
+}
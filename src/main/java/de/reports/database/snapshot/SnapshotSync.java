@@ -0,0 +1,438 @@
+package de.reports.database.snapshot;
+
+import de.reports.database.ColumnInfo;
+import de.reports.database.ColumnarResult;
+import de.reports.database.DatabaseManager;
+import de.reports.database.ParameterizedQuery;
+import de.reports.database.QueryCursor;
+import de.reports.database.QueryHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+
+/**
+ * Incremental refresh of a snapshot from SQL Server change tracking or a rowversion column.
+ *
+ * When a snapshot is captured the current change tracking version (or the
+ * lowest active rowversion) is stored as its watermark. A refresh only reads
+ * the rows changed after it and merges them by key into a new snapshot file;
+ * the database sends the changed rows, not the table.
+ *
+ * Change tracking reports deletes directly. With a rowversion column deletes
+ * are invisible, so the merged row count is compared with the table count,
+ * taken in the same statement as the changed rows. Only if the snapshot has
+ * more rows are the key values read to find the deleted ones. Rows changed
+ * while the snapshot was read are pulled again by the next refresh, which is
+ * harmless because changes are applied as upserts.
+ */
+final class SnapshotSync {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotSync.class);
+    private static final int FETCH_SIZE = 1000;
+
+    private SnapshotSync() {
+    }
+
+    /**
+     * Change source of the table, read before its rows so no change is missed.
+     * Needs SQL Server and a unique key; anything else refreshes by full read.
+     */
+    static SyncState detect(DatabaseManager databaseManager, String tableName) throws SQLException {
+        if (databaseManager.getDialect() == null || !"sqlserver".equals(databaseManager.getDialect().getName())) {
+            return SyncState.none();
+        }
+        List<String> keyColumns = databaseManager.findUniqueKeyColumns(tableName);
+        if (keyColumns.isEmpty()) {
+            return SyncState.none();
+        }
+
+        long[] versions = changeTrackingVersions(databaseManager, tableName);
+        if (versions != null) {
+            return new SyncState(SyncState.Mode.CHANGE_TRACKING, versions[0], null, keyColumns);
+        }
+
+        for (ColumnInfo column : databaseManager.getTableColumns(tableName)) {
+            String type = column.getDataType() != null ? column.getDataType().toLowerCase() : "";
+            if (type.equals("timestamp") || type.equals("rowversion")) {
+                return new SyncState(SyncState.Mode.ROWVERSION, minActiveRowVersion(databaseManager),
+                    column.getName(), keyColumns);
+            }
+        }
+        return SyncState.none();
+    }
+
+    /**
+     * Write the snapshot with the changes since its watermark applied to the target file
+     *
+     * @return the result, with written == false if nothing changed; null if the
+     *         changes cannot be applied (history cleaned up, schema changed) and
+     *         the table has to be read again
+     */
+    static Result refresh(DatabaseManager databaseManager, TableSnapshot snapshot, long capturedAt, Path target,
+                          QueryHandle handle, LongConsumer progress) throws SQLException, IOException {
+        SyncState sync = snapshot.getSyncState();
+        Changes changes;
+        if (sync.getMode() == SyncState.Mode.CHANGE_TRACKING) {
+            changes = readTrackedChanges(databaseManager, snapshot, sync);
+        } else if (sync.getMode() == SyncState.Mode.ROWVERSION) {
+            changes = readRowVersionChanges(databaseManager, snapshot, sync);
+        } else {
+            return null;
+        }
+        if (changes == null) {
+            return null;
+        }
+        if (changes.upserts.isEmpty() && changes.deletes.isEmpty()
+                && (sync.getMode() == SyncState.Mode.CHANGE_TRACKING
+                    ? changes.sync.getWatermark() == sync.getWatermark()
+                    : changes.serverRowCount == snapshot.getRowCount())) {
+            return new Result(false, 0, 0);
+        }
+
+        // Change tracking rewrites the file even without changes to this table: the
+        // version advances with every change in the database, and an old watermark
+        // falls out of the retained history
+        int[] keyIndexes = keyIndexes(snapshot, sync.getKeyColumns());
+        Merge merge = new Merge(snapshot, keyIndexes, changes, null, handle);
+        long rows = SnapshotWriter.write(snapshot.getSchema(), merge, snapshot.getTableName(), capturedAt,
+            changes.sync, target, handle, progress);
+
+        if (changes.serverRowCount >= 0 && rows > changes.serverRowCount) {
+            // Rows were deleted: find them by the keys that still exist, then merge again
+            Set<List<String>> liveKeys = readKeys(databaseManager, snapshot.getTableName(), sync.getKeyColumns(), handle);
+            merge = new Merge(snapshot, keyIndexes, changes, liveKeys, handle);
+            SnapshotWriter.write(snapshot.getSchema(), merge, snapshot.getTableName(), capturedAt,
+                changes.sync, target, handle, progress);
+        }
+        return new Result(true, changes.upserts.size(), merge.deletedRows);
+    }
+
+    private static Changes readTrackedChanges(DatabaseManager databaseManager, TableSnapshot snapshot,
+                                              SyncState sync) throws SQLException {
+        String tableName = snapshot.getTableName();
+        long[] versions = changeTrackingVersions(databaseManager, tableName);
+        if (versions == null || versions[1] > sync.getWatermark()) {
+            logger.info("Change tracking history of {} no longer covers the snapshot", tableName);
+            return null;
+        }
+
+        List<String> keys = sync.getKeyColumns();
+        StringBuilder sql = new StringBuilder("SELECT ct.SYS_CHANGE_OPERATION");
+        StringBuilder join = new StringBuilder();
+        for (String key : keys) {
+            sql.append(", ct.").append(key);
+            join.append(join.length() == 0 ? " ON " : " AND ").append("t.").append(key).append(" = ct.").append(key);
+        }
+        sql.append(", t.* FROM CHANGETABLE(CHANGES ").append(tableName).append(", ?) AS ct LEFT JOIN ")
+            .append(tableName).append(" AS t").append(join);
+        ParameterizedQuery query = new ParameterizedQuery(sql.toString(),
+            List.of(new ParameterizedQuery.Parameter(sync.getWatermark(), Types.BIGINT)));
+
+        Changes changes = new Changes(sync.withWatermark(versions[0]), -1);
+        try (QueryCursor cursor = databaseManager.openCursor(query, FETCH_SIZE)) {
+            int dataStart = 1 + keys.size();
+            List<ColumnInfo> schema = cursor.getSchema().subList(dataStart, cursor.getColumnCount());
+            if (!sameColumns(schema, snapshot.getSchema())) {
+                logger.info("Columns of {} changed since the snapshot", tableName);
+                return null;
+            }
+
+            int[] rowKeyIndexes = keyIndexes(schema, keys);
+            while (cursor.next()) {
+                Object[] key = new Object[keys.size()];
+                for (int k = 0; k < key.length; k++) {
+                    key[k] = cursor.getValue(1 + k);
+                }
+                // A row deleted after the change was recorded has no data any more
+                boolean deleted = "D".equals(cursor.getValue(0)) || cursor.getValue(dataStart + rowKeyIndexes[0]) == null;
+                if (deleted) {
+                    changes.deletes.add(keyOf(key));
+                } else {
+                    Object[] row = new Object[schema.size()];
+                    for (int c = 0; c < row.length; c++) {
+                        row[c] = cursor.getValue(dataStart + c);
+                    }
+                    changes.upserts.put(keyOf(key), row);
+                }
+            }
+        }
+        logger.info("Change tracking for {}: {} changed, {} deleted rows since version {}",
+            tableName, changes.upserts.size(), changes.deletes.size(), sync.getWatermark());
+        return changes;
+    }
+
+    private static Changes readRowVersionChanges(DatabaseManager databaseManager, TableSnapshot snapshot,
+                                                 SyncState sync) throws SQLException {
+        String tableName = snapshot.getTableName();
+        long watermark = minActiveRowVersion(databaseManager);
+
+        // The count is joined to the changed rows so both come from one statement;
+        // without changes the count arrives on a single row with NULL columns
+        ParameterizedQuery query = new ParameterizedQuery(
+            "SELECT c.row_count, t.* FROM (SELECT COUNT_BIG(*) AS row_count FROM " + tableName + ") AS c"
+                + " LEFT JOIN " + tableName + " AS t ON t." + sync.getRowVersionColumn() + " >= CAST(? AS binary(8))",
+            List.of(new ParameterizedQuery.Parameter(sync.getWatermark(), Types.BIGINT)));
+        Changes changes = null;
+        try (QueryCursor cursor = databaseManager.openCursor(query, FETCH_SIZE)) {
+            List<ColumnInfo> schema = cursor.getSchema().subList(1, cursor.getColumnCount());
+            if (!sameColumns(schema, snapshot.getSchema())) {
+                logger.info("Columns of {} changed since the snapshot", tableName);
+                return null;
+            }
+
+            int[] rowKeyIndexes = keyIndexes(schema, sync.getKeyColumns());
+            int rowVersionIndex = keyIndexes(schema, List.of(sync.getRowVersionColumn()))[0];
+            while (cursor.next()) {
+                if (changes == null) {
+                    changes = new Changes(sync.withWatermark(watermark), ((Number) cursor.getValue(0)).longValue());
+                }
+                if (cursor.getValue(1 + rowVersionIndex) == null) {
+                    continue; // the count row of a table without changes
+                }
+                Object[] row = new Object[schema.size()];
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = cursor.getValue(1 + c);
+                }
+                Object[] key = new Object[rowKeyIndexes.length];
+                for (int k = 0; k < key.length; k++) {
+                    key[k] = row[rowKeyIndexes[k]];
+                }
+                changes.upserts.put(keyOf(key), row);
+            }
+        }
+        if (changes == null) {
+            throw new SQLException("No row count returned for " + tableName);
+        }
+        logger.info("Rowversion refresh of {}: {} changed rows since {}", tableName, changes.upserts.size(),
+            sync.getWatermark());
+        return changes;
+    }
+
+    /**
+     * Key values of all rows in the table
+     */
+    private static Set<List<String>> readKeys(DatabaseManager databaseManager, String tableName,
+                                              List<String> keyColumns, QueryHandle handle) throws SQLException {
+        Set<List<String>> keys = new HashSet<>();
+        try (QueryCursor cursor = databaseManager.openCursor(
+                "SELECT " + String.join(", ", keyColumns) + " FROM " + tableName, 0)) {
+            Object[] key = new Object[keyColumns.size()];
+            while (cursor.next()) {
+                for (int k = 0; k < key.length; k++) {
+                    key[k] = cursor.getValue(k);
+                }
+                if ((keys.size() & 0xFFFF) == 0 && handle.isCancelled()) {
+                    throw new CancellationException("Snapshot refresh of " + tableName + " cancelled");
+                }
+                keys.add(keyOf(key));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Current version and oldest version still in the history for the table,
+     * or null if change tracking is not enabled for it
+     */
+    private static long[] changeTrackingVersions(DatabaseManager databaseManager, String tableName) throws SQLException {
+        ParameterizedQuery query = new ParameterizedQuery(
+            "SELECT CHANGE_TRACKING_CURRENT_VERSION(), CHANGE_TRACKING_MIN_VALID_VERSION(OBJECT_ID(?))",
+            List.of(new ParameterizedQuery.Parameter(tableName, Types.NVARCHAR)));
+        try (QueryCursor cursor = databaseManager.openCursor(query, 1)) {
+            if (cursor.next() && cursor.getValue(0) != null && cursor.getValue(1) != null) {
+                return new long[]{((Number) cursor.getValue(0)).longValue(), ((Number) cursor.getValue(1)).longValue()};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rowversion below which every change is committed
+     */
+    private static long minActiveRowVersion(DatabaseManager databaseManager) throws SQLException {
+        try (QueryCursor cursor = databaseManager.openCursor("SELECT CAST(MIN_ACTIVE_ROWVERSION() AS bigint)", 1)) {
+            cursor.next();
+            return ((Number) cursor.getValue(0)).longValue();
+        }
+    }
+
+    private static boolean sameColumns(List<ColumnInfo> columns, List<ColumnInfo> snapshotColumns) {
+        if (columns.size() != snapshotColumns.size()) {
+            return false;
+        }
+        for (int c = 0; c < columns.size(); c++) {
+            if (!columns.get(c).getName().equalsIgnoreCase(snapshotColumns.get(c).getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] keyIndexes(TableSnapshot snapshot, List<String> keyColumns) throws IOException {
+        int[] indexes = keyIndexes(snapshot.getSchema(), keyColumns);
+        for (int index : indexes) {
+            if (index < 0) {
+                throw new IOException("Key column missing in the snapshot of " + snapshot.getTableName());
+            }
+        }
+        return indexes;
+    }
+
+    private static int[] keyIndexes(List<ColumnInfo> schema, List<String> keyColumns) {
+        int[] indexes = new int[keyColumns.size()];
+        for (int k = 0; k < indexes.length; k++) {
+            indexes[k] = -1;
+            for (int c = 0; c < schema.size(); c++) {
+                if (schema.get(c).getName().equalsIgnoreCase(keyColumns.get(k))) {
+                    indexes[k] = c;
+                    break;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Comparable form of a key: the same row gives the same key whether its values
+     * come from the driver or were decoded from the snapshot
+     */
+    private static List<String> keyOf(Object[] values) {
+        List<String> key = new ArrayList<>(values.length);
+        for (Object value : values) {
+            if (value == null) {
+                key.add(null);
+            } else if (value instanceof Number) {
+                key.add(new BigDecimal(value.toString()).stripTrailingZeros().toPlainString());
+            } else if (value instanceof byte[]) {
+                key.add(Base64.getEncoder().encodeToString((byte[]) value));
+            } else {
+                key.add(value.toString().stripTrailing());
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Changed rows by key, deleted keys and the table row count (-1 if not needed)
+     */
+    private static class Changes {
+        final SyncState sync;
+        final long serverRowCount;
+        final Map<List<String>, Object[]> upserts = new LinkedHashMap<>();
+        final Set<List<String>> deletes = new HashSet<>();
+
+        Changes(SyncState sync, long serverRowCount) {
+            this.sync = sync;
+            this.serverRowCount = serverRowCount;
+        }
+    }
+
+    /**
+     * Snapshot rows with updates applied and deleted rows skipped, followed by the new rows
+     */
+    private static class Merge implements SnapshotWriter.RowSource {
+        private final TableSnapshot snapshot;
+        private final int[] keyIndexes;
+        private final Changes changes;
+        private final Set<List<String>> liveKeys;
+        private final QueryHandle handle;
+        private final int rowCount;
+        private final Set<List<String>> updated = new HashSet<>();
+
+        private int row = -1;
+        // Snapshot rows are read one compressed block at a time
+        private ColumnarResult block = ColumnarResult.empty();
+        private int blockStart;
+        private Object[] current;
+        private Iterator<Map.Entry<List<String>, Object[]>> inserts;
+        int deletedRows;
+
+        Merge(TableSnapshot snapshot, int[] keyIndexes, Changes changes, Set<List<String>> liveKeys,
+              QueryHandle handle) throws IOException {
+            this.snapshot = snapshot;
+            this.keyIndexes = keyIndexes;
+            this.changes = changes;
+            this.liveKeys = liveKeys;
+            this.handle = handle;
+            this.rowCount = snapshot.getRowCount();
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            while (++row < rowCount) {
+                if ((row & 0xFFFF) == 0 && handle.isCancelled()) {
+                    throw new CancellationException("Snapshot refresh cancelled");
+                }
+                if (row - blockStart >= block.getRowCount()) {
+                    blockStart = row;
+                    block = snapshot.read(null, row, snapshot.getBlockRows());
+                }
+                Object[] keyValues = new Object[keyIndexes.length];
+                for (int k = 0; k < keyValues.length; k++) {
+                    keyValues[k] = block.getValue(row - blockStart, keyIndexes[k]);
+                }
+                List<String> key = keyOf(keyValues);
+
+                if (changes.deletes.contains(key)
+                        || (liveKeys != null && !liveKeys.contains(key))) {
+                    deletedRows++;
+                    continue;
+                }
+                Object[] update = changes.upserts.get(key);
+                if (update != null) {
+                    updated.add(key);
+                    current = update;
+                } else {
+                    current = null;
+                }
+                return true;
+            }
+
+            if (inserts == null) {
+                inserts = changes.upserts.entrySet().iterator();
+            }
+            while (inserts.hasNext()) {
+                Map.Entry<List<String>, Object[]> entry = inserts.next();
+                if (!updated.contains(entry.getKey())) {
+                    current = entry.getValue();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object getValue(int column) {
+            return current != null ? current[column] : block.getValue(row - blockStart, column);
+        }
+    }
+
+    /**
+     * Outcome of an incremental refresh
+     */
+    static class Result {
+        final boolean written;
+        final int changedRows;
+        final int deletedRows;
+
+        Result(boolean written, int changedRows, int deletedRows) {
+            this.written = written;
+            this.changedRows = changedRows;
+            this.deletedRows = deletedRows;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package de.reports.database.snapshot;
+
+import de.reports.database.ColumnInfo;
+import de.reports.database.QueryCursor;
+import de.reports.database.QueryHandle;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a snapshot file from a streaming cursor.
+ *
+ * Each column is encoded into its own temp file while the rows arrive, in
+ * blocks of BLOCK_ROWS rows that are deflated independently, so memory use
+ * does not depend on the table size and a reader can inflate just the blocks
+ * it needs. The columns are then concatenated behind a header holding the
+ * schema, the offset of every column segment and of its blocks, and the sync
+ * state:
+ *
+ *   int magic, int version, int headerLength, header, column segments...
+ */
+class SnapshotWriter {
+    static final int MAGIC = 0x52534E50; // "RSNP"
+    static final int VERSION = 3;
+    static final int BLOCK_ROWS = 2048;
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    private SnapshotWriter() {
+    }
+
+    /**
+     * Rows to write, read once from start to end
+     */
+    interface RowSource {
+        boolean next() throws SQLException, IOException;
+
+        Object getValue(int column) throws SQLException, IOException;
+    }
+
+    /**
+     * Read the cursor to the end and write the snapshot to the target file
+     *
+     * @return number of rows written
+     */
+    static long write(QueryCursor cursor, String tableName, long capturedAt, SyncState sync, Path target,
+                      QueryHandle handle, LongConsumer progress) throws SQLException, IOException {
+        RowSource rows = new RowSource() {
+            @Override
+            public boolean next() throws SQLException {
+                return cursor.next();
+            }
+
+            @Override
+            public Object getValue(int column) throws SQLException {
+                return cursor.getValue(column);
+            }
+        };
+        return write(cursor.getSchema(), rows, tableName, capturedAt, sync, target, handle, progress);
+    }
+
+    /**
+     * Write all rows of the source to the target file
+     *
+     * @return number of rows written
+     */
+    static long write(List<ColumnInfo> schema, RowSource rows, String tableName, long capturedAt, SyncState sync,
+                      Path target, QueryHandle handle, LongConsumer progress) throws SQLException, IOException {
+        List<SegmentWriter> segments = new ArrayList<>();
+        byte[] kinds = new byte[schema.size()];
+
+        try {
+            for (int c = 0; c < schema.size(); c++) {
+                kinds[c] = ColumnCodec.kindOf(schema.get(c).getJdbcType());
+                segments.add(new SegmentWriter(Files.createTempFile(target.getParent(), "segment", ".tmp"), kinds[c]));
+            }
+
+            long rowCount = 0;
+            while (rows.next()) {
+                for (int c = 0; c < segments.size(); c++) {
+                    segments.get(c).write(rows.getValue(c));
+                }
+                rowCount++;
+                if (rowCount % BLOCK_ROWS == 0) {
+                    for (SegmentWriter segment : segments) {
+                        segment.flushBlock();
+                    }
+                }
+                if (rowCount % PROGRESS_INTERVAL == 0) {
+                    if (handle.isCancelled()) {
+                        throw new CancellationException("Snapshot of " + tableName + " cancelled");
+                    }
+                    progress.accept(rowCount);
+                }
+            }
+            for (SegmentWriter segment : segments) {
+                if (rowCount % BLOCK_ROWS != 0) {
+                    segment.flushBlock();
+                }
+                segment.close();
+            }
+
+            writeFile(target, tableName, capturedAt, rowCount, schema, kinds, sync, segments);
+            progress.accept(rowCount);
+            return rowCount;
+
+        } finally {
+            for (SegmentWriter segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException ignored) {
+                    // already closed or the write failed anyway
+                }
+                Files.deleteIfExists(segment.file);
+            }
+        }
+    }
+
+    private static void writeFile(Path target, String tableName, long capturedAt, long rowCount,
+                                  List<ColumnInfo> schema, byte[] kinds, SyncState sync,
+                                  List<SegmentWriter> segments) throws IOException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        try (DataOutputStream header = new DataOutputStream(headerBytes)) {
+            header.writeLong(capturedAt);
+            header.writeUTF(tableName);
+            header.writeLong(rowCount);
+            header.writeInt(BLOCK_ROWS);
+            header.writeInt(schema.size());
+
+            long offset = 0;
+            for (int c = 0; c < schema.size(); c++) {
+                ColumnInfo column = schema.get(c);
+                SegmentWriter segment = segments.get(c);
+                header.writeUTF(column.getName());
+                header.writeUTF(column.getDataType() != null ? column.getDataType() : "");
+                header.writeInt(column.getSize());
+                header.writeBoolean(column.isNullable());
+                header.writeInt(column.getJdbcType());
+                header.writeByte(kinds[c]);
+                header.writeLong(offset);
+                header.writeLong(segment.length);
+                header.writeInt(segment.blockOffsets.size());
+                for (long blockOffset : segment.blockOffsets) {
+                    header.writeLong(blockOffset);
+                }
+                offset += segment.length;
+            }
+            sync.writeTo(header);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(headerBytes.size());
+            headerBytes.writeTo(out);
+            for (SegmentWriter segment : segments) {
+                copy(segment.file, out);
+            }
+        }
+    }
+
+    /**
+     * Temp file of one column: values are encoded into a buffer that is written as
+     * one deflated block every BLOCK_ROWS rows
+     */
+    private static class SegmentWriter implements Closeable {
+        private final Path file;
+        private final OutputStream out;
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        private final ColumnCodec.Encoder encoder;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        // Start of every block, relative to the start of the segment
+        private final List<Long> blockOffsets = new ArrayList<>();
+        private long length = 0;
+
+        SegmentWriter(Path file, byte kind) throws IOException {
+            this.file = file;
+            this.out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+            this.encoder = new ColumnCodec.Encoder(kind, new DataOutputStream(block));
+        }
+
+        void write(Object value) throws IOException {
+            encoder.write(value);
+        }
+
+        void flushBlock() throws IOException {
+            deflater.reset();
+            compressed.reset();
+            DeflaterOutputStream deflated = new DeflaterOutputStream(compressed, deflater, 8 * 1024);
+            block.writeTo(deflated);
+            deflated.finish();
+
+            blockOffsets.add(length);
+            compressed.writeTo(out);
+            length += compressed.size();
+            block.reset();
+            encoder.reset();
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private static void copy(Path source, OutputStream out) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            in.transferTo(out);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.reports.database.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How a snapshot can be brought up to date, stored in its header.
+ *
+ * The watermark is the SQL Server change tracking version or the rowversion
+ * value that was current when the snapshot data was read; rows changed after
+ * it are pulled by the next refresh and matched to snapshot rows by the key
+ * columns.
+ */
+public class SyncState {
+    public enum Mode {
+        /** no change source - refresh reads the whole table */
+        NONE,
+        /** CHANGETABLE(CHANGES ...) since the watermark version */
+        CHANGE_TRACKING,
+        /** rows whose rowversion column is above the watermark */
+        ROWVERSION
+    }
+
+    private static final SyncState NONE = new SyncState(Mode.NONE, 0, null, Collections.emptyList());
+
+    private final Mode mode;
+    private final long watermark;
+    private final String rowVersionColumn;
+    private final List<String> keyColumns;
+
+    public SyncState(Mode mode, long watermark, String rowVersionColumn, List<String> keyColumns) {
+        this.mode = mode;
+        this.watermark = watermark;
+        this.rowVersionColumn = rowVersionColumn;
+        this.keyColumns = Collections.unmodifiableList(new ArrayList<>(keyColumns));
+    }
+
+    public static SyncState none() {
+        return NONE;
+    }
+
+    /**
+     * Same change source with a newer watermark
+     */
+    public SyncState withWatermark(long newWatermark) {
+        return new SyncState(mode, newWatermark, rowVersionColumn, keyColumns);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(mode.name());
+        out.writeLong(watermark);
+        out.writeUTF(rowVersionColumn != null ? rowVersionColumn : "");
+        out.writeInt(keyColumns.size());
+        for (String column : keyColumns) {
+            out.writeUTF(column);
+        }
+    }
+
+    static SyncState readFrom(DataInput in) throws IOException {
+        Mode mode = Mode.valueOf(in.readUTF());
+        long watermark = in.readLong();
+        String rowVersionColumn = in.readUTF();
+        int keyCount = in.readInt();
+        List<String> keyColumns = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            keyColumns.add(in.readUTF());
+        }
+        return new SyncState(mode, watermark, rowVersionColumn.isEmpty() ? null : rowVersionColumn, keyColumns);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public String getRowVersionColumn() {
+        return rowVersionColumn;
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    @Override
+    public String toString() {
+        return mode + "@" + watermark;
+    }
+}
@@ -0,0 +1,376 @@
+package de.reports.database.snapshot;
+
+import de.reports.database.ColumnInfo;
+import de.reports.database.ColumnVector;
+import de.reports.database.ColumnarResult;
+import de.reports.database.engine.BitmapIndex;
+import de.reports.database.engine.NGramIndex;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Read-only view of a snapshot file written by SnapshotWriter.
+ *
+ * Each column segment is memory-mapped on its own, so the file may exceed
+ * 2 GB; only the header is parsed when it is opened.
+ * Columns are stored in independently deflated row blocks, so a preview page
+ * inflates just the blocks holding its rows. Whole columns are decoded only
+ * for filtering and are not kept afterwards, except low-cardinality columns
+ * (kept with their bitmap index) and the text columns whose trigram index was
+ * built.
+ */
+public class TableSnapshot {
+    private final Path path;
+    private final String tableName;
+    private final Instant capturedAt;
+    private final int rowCount;
+    private final List<ColumnInfo> schema;
+    private final byte[] kinds;
+    private final MappedByteBuffer[] segments;
+    private final int blockRows;
+    private final long[][] blockOffsets;
+    private final SyncState sync;
+    // Columns held for their bitmap or trigram index (see buildTextIndexes)
+    private final Map<Integer, ColumnVector> indexedColumns = new ConcurrentHashMap<>();
+    // Columns with too many distinct values for a bitmap index
+    private final Set<Integer> unindexedColumns = ConcurrentHashMap.newKeySet();
+
+    private TableSnapshot(Path path, String tableName, Instant capturedAt, int rowCount, List<ColumnInfo> schema,
+                          byte[] kinds, MappedByteBuffer[] segments, int blockRows, long[][] blockOffsets,
+                          SyncState sync) {
+        this.path = path;
+        this.tableName = tableName;
+        this.capturedAt = capturedAt;
+        this.rowCount = rowCount;
+        this.schema = Collections.unmodifiableList(schema);
+        this.kinds = kinds;
+        this.segments = segments;
+        this.blockRows = blockRows;
+        this.blockOffsets = blockOffsets;
+        this.sync = sync;
+    }
+
+    /**
+     * Read the header of the snapshot file and map its column segments
+     */
+    public static TableSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < 12) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            ByteBuffer prefix = channel.map(FileChannel.MapMode.READ_ONLY, 0, 12);
+            if (prefix.getInt(0) != SnapshotWriter.MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            if (prefix.getInt(4) != SnapshotWriter.VERSION) {
+                throw new IOException("Unsupported snapshot version " + prefix.getInt(4) + ": " + path);
+            }
+            int headerLength = prefix.getInt(8);
+            long dataStart = 12L + headerLength;
+            if (headerLength < 0 || dataStart > channel.size()) {
+                throw new IOException("Truncated snapshot file: " + path);
+            }
+
+            MappedByteBuffer headerBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 12, headerLength);
+            try (DataInputStream header = new DataInputStream(new MappedInputStream(headerBuffer))) {
+                Instant capturedAt = Instant.ofEpochMilli(header.readLong());
+                String tableName = header.readUTF();
+                long rows = header.readLong();
+                if (rows > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot too large: " + rows + " rows");
+                }
+                int blockRows = header.readInt();
+                int columnCount = header.readInt();
+
+                List<ColumnInfo> schema = new ArrayList<>(columnCount);
+                byte[] kinds = new byte[columnCount];
+                MappedByteBuffer[] segments = new MappedByteBuffer[columnCount];
+                long[][] blockOffsets = new long[columnCount][];
+                for (int c = 0; c < columnCount; c++) {
+                    ColumnInfo column = new ColumnInfo(header.readUTF(), header.readUTF(), header.readInt(),
+                        header.readBoolean(), null);
+                    column.setJdbcType(header.readInt());
+                    schema.add(column);
+                    kinds[c] = header.readByte();
+                    long offset = header.readLong();
+                    long length = header.readLong();
+                    if (length > Integer.MAX_VALUE || dataStart + offset + length > channel.size()) {
+                        throw new IOException("Column segment of " + column.getName() + " is larger than 2 GB"
+                            + " or outside the file: " + path);
+                    }
+                    segments[c] = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + offset, length);
+                    blockOffsets[c] = new long[header.readInt()];
+                    for (int block = 0; block < blockOffsets[c].length; block++) {
+                        blockOffsets[c][block] = header.readLong();
+                    }
+                }
+                SyncState sync = SyncState.readFrom(header);
+
+                return new TableSnapshot(path, tableName, capturedAt, (int) rows, schema, kinds, segments,
+                    blockRows, blockOffsets, sync);
+            }
+        }
+    }
+
+    /**
+     * All rows of the given columns (all columns if null or empty), e.g. for
+     * filtering; the vectors are decoded for this call and not kept, unless a
+     * bitmap index can be built for them
+     */
+    public ColumnarResult read(List<String> columns) throws IOException {
+        List<Integer> indexes = columnIndexes(columns);
+        List<ColumnInfo> selectedSchema = new ArrayList<>(indexes.size());
+        ColumnVector[] vectors = new ColumnVector[indexes.size()];
+        for (int i = 0; i < indexes.size(); i++) {
+            selectedSchema.add(schema.get(indexes.get(i)));
+            vectors[i] = decodeColumn(indexes.get(i));
+            retainBitmapIndex(indexes.get(i), vectors[i]);
+        }
+        return ColumnarResult.of(selectedSchema, vectors, rowCount);
+    }
+
+    /**
+     * Keep a low-cardinality column together with its bitmap index, so later
+     * filters answer equality and list conditions on it from the bitmaps
+     */
+    private void retainBitmapIndex(int columnIndex, ColumnVector vector) {
+        if (unindexedColumns.contains(columnIndex)) {
+            return;
+        }
+        vector.seal();
+        if (BitmapIndex.of(vector) != null) {
+            indexedColumns.putIfAbsent(columnIndex, vector);
+        } else {
+            unindexedColumns.add(columnIndex);
+        }
+    }
+
+    /**
+     * A range of rows of the given columns (all columns if null or empty), e.g. one preview block
+     */
+    public ColumnarResult read(List<String> columns, int fromRow, int maxRows) throws IOException {
+        int from = Math.max(fromRow, 0);
+        int toRow = (int) Math.min((long) from + maxRows, rowCount);
+        int[] rowIds = new int[Math.max(toRow - from, 0)];
+        for (int i = 0; i < rowIds.length; i++) {
+            rowIds[i] = from + i;
+        }
+        return readRows(columns, rowIds);
+    }
+
+    /**
+     * The given rows (ascending) of the given columns (all columns if null or empty),
+     * e.g. one page of filter matches; only the blocks holding these rows are inflated
+     */
+    public ColumnarResult readRows(List<String> columns, int[] rowIds) throws IOException {
+        List<Integer> indexes = columnIndexes(columns);
+        List<ColumnInfo> selectedSchema = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            selectedSchema.add(schema.get(index));
+        }
+
+        ColumnarResult.Builder builder = new ColumnarResult.Builder(selectedSchema);
+        ColumnVector[] vectors = new ColumnVector[indexes.size()];
+        // Indexed columns are held whole and read by the absolute row
+        boolean[] whole = new boolean[indexes.size()];
+        Object[] values = new Object[indexes.size()];
+        int loadedBlock = -1;
+        for (int row : rowIds) {
+            if (row < 0 || row >= rowCount) {
+                continue;
+            }
+            int block = row / blockRows;
+            if (block != loadedBlock) {
+                for (int i = 0; i < vectors.length; i++) {
+                    ColumnVector indexed = indexedColumns.get(indexes.get(i));
+                    whole[i] = indexed != null;
+                    vectors[i] = whole[i] ? indexed : decodeBlock(indexes.get(i), block);
+                }
+                loadedBlock = block;
+            }
+            for (int i = 0; i < vectors.length; i++) {
+                values[i] = vectors[i].get(whole[i] ? row : row - block * blockRows);
+            }
+            builder.appendRow(values);
+        }
+        return builder.build();
+    }
+
+    /**
+     * All blocks of a column inflated into one vector
+     */
+    private ColumnVector decodeColumn(int columnIndex) throws IOException {
+        ColumnVector indexed = indexedColumns.get(columnIndex);
+        if (indexed != null) {
+            return indexed;
+        }
+        ColumnVector vector = ColumnVector.forJdbcType(schema.get(columnIndex).getJdbcType());
+        for (int block = 0; block < blockOffsets[columnIndex].length; block++) {
+            decodeBlock(columnIndex, block, vector);
+        }
+        return vector;
+    }
+
+    private ColumnVector decodeBlock(int columnIndex, int block) throws IOException {
+        ColumnVector vector = ColumnVector.forJdbcType(schema.get(columnIndex).getJdbcType());
+        decodeBlock(columnIndex, block, vector);
+        vector.seal();
+        return vector;
+    }
+
+    private void decodeBlock(int columnIndex, int block, ColumnVector vector) throws IOException {
+        long[] blocks = blockOffsets[columnIndex];
+        int start = (int) blocks[block];
+        int end = block + 1 < blocks.length ? (int) blocks[block + 1] : segments[columnIndex].capacity();
+        int rows = Math.min(blockRows, rowCount - block * blockRows);
+
+        ByteBuffer segment = slice(segments[columnIndex], start, end - start);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new MappedInputStream(segment)), 64 * 1024))) {
+            ColumnCodec.decode(in, kinds[columnIndex], rows, vector);
+        }
+    }
+
+    /**
+     * Build the trigram indexes of the given text columns so later CONTAINS /
+     * STARTS_WITH / ENDS_WITH filters do not scan their dictionaries.
+     * Columns missing from the snapshot or not stored as text are skipped.
+     *
+     * @return number of indexed columns
+     */
+    public int buildTextIndexes(List<String> columns) throws IOException {
+        int indexed = 0;
+        for (String column : columns) {
+            int index = getColumnIndex(column);
+            if (index < 0) {
+                continue;
+            }
+            ColumnVector vector = decodeColumn(index);
+            if (vector instanceof ColumnVector.StringVector) {
+                vector.seal();
+                NGramIndex.of((ColumnVector.StringVector) vector);
+                indexedColumns.putIfAbsent(index, vector);
+                indexed++;
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * Index of the column (case-insensitive), or -1 if the snapshot does not contain it
+     */
+    public int getColumnIndex(String columnName) {
+        for (int c = 0; c < schema.size(); c++) {
+            if (schema.get(c).getName().equalsIgnoreCase(columnName)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private List<Integer> columnIndexes(List<String> columns) throws IOException {
+        List<Integer> indexes = new ArrayList<>();
+        if (columns == null || columns.isEmpty()) {
+            for (int c = 0; c < schema.size(); c++) {
+                indexes.add(c);
+            }
+            return indexes;
+        }
+        for (String column : columns) {
+            int index = getColumnIndex(column);
+            if (index < 0) {
+                throw new IOException("Column " + column + " is not part of the snapshot of " + tableName);
+            }
+            indexes.add(index);
+        }
+        return indexes;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit(position + length);
+        return view.slice();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Rows per compressed column block
+     */
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    public List<ColumnInfo> getSchema() {
+        return schema;
+    }
+
+    /**
+     * Change source and watermark for an incremental refresh
+     */
+    public SyncState getSyncState() {
+        return sync;
+    }
+
+    /**
+     * Sequential reader over a mapped byte range
+     */
+    private static class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import de.reports.i18n.MessageBundle;
 import de.reports.utils.ConfigManager;
 import de.reports.utils.FileUtils;
 import de.reports.utils.SecurityUtils;
+import de.reports.utils.TaskScheduler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -313,7 +314,7 @@ public class DatabaseConnectionPanel {
         testButton.setDisable(true);
 
         // Test connection in background thread
-        Thread testThread = new Thread(() -> {
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.HIGH, () -> {
             try {
                 boolean success = databaseManager.testConnection(connInfo);
 
@@ -342,9 +343,6 @@ public class DatabaseConnectionPanel {
                 });
             }
         });
-
-        testThread.setDaemon(true);
-        testThread.start();
     }
 
     private void saveConnection() {
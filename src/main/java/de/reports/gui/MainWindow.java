@@ -208,12 +208,12 @@ public class MainWindow {
 
         // Listen for filter changes from ReportDesignPanel
         reportPanel.setOnFilterChanged(whereClause -> {
-            String currentTable = reportPanel.getReportConfiguration() != null ?
-                reportPanel.getReportConfiguration().getTableName() : null;
+            ReportDesignPanel.ReportConfiguration configuration = reportPanel.getReportConfiguration();
+            String currentTable = configuration != null ? configuration.getTableName() : null;
 
-            if (currentTable != null && whereClause != null && !whereClause.trim().isEmpty()) {
-                // Show filtered data in TableSelectionPanel
-                tablePanel.showFilteredData(currentTable, whereClause);
+            if (currentTable != null && !configuration.getFilterConditions().isEmpty()) {
+                // Show filtered data in TableSelectionPanel (values bound as parameters)
+                tablePanel.showFilteredData(currentTable, configuration.getFilterConditions());
                 updateStatus("Filter angewendet - gefilterte Daten werden angezeigt");
             } else if (currentTable != null) {
                 // Clear filters and show original data
@@ -222,6 +222,9 @@ public class MainWindow {
             }
         });
 
+        // Fetch only the selected report columns in the preview
+        reportPanel.setOnColumnsChanged(columns -> tablePanel.setPreviewColumns(columns));
+
         formatPanel.setOnFormatConfigured(configured -> {
             Tab exportTab = tabPane.getTabs().get(4);
             exportTab.setDisable(!configured); // Export preview tab
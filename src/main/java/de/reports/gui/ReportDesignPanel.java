@@ -1,6 +1,7 @@
 package de.reports.gui;
 
 import de.reports.database.ColumnInfo;
+import de.reports.database.FilterCondition;
 import de.reports.gui.components.ColumnSelectionComponent;
 import de.reports.gui.components.FilterBuilderComponent;
 import de.reports.i18n.MessageBundle;
@@ -11,6 +12,7 @@ import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Separator;
 import javafx.scene.layout.VBox;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -25,6 +27,7 @@ public class ReportDesignPanel {
     private ScrollPane scrollPane;
     private Consumer<Boolean> onReportDesigned;
     private Consumer<String> onFilterChanged;
+    private Consumer<List<String>> onColumnsChanged;
 
     // Component sections
     private ColumnSelectionComponent columnSelection;
@@ -101,6 +104,11 @@ public class ReportDesignPanel {
         columnSelection.setOnSelectionChanged(selectedColumns -> {
             updateStatus();
             checkReportReadiness();
+
+            // Notify MainWindow so the preview only fetches the selected columns
+            if (onColumnsChanged != null && currentTableName != null) {
+                onColumnsChanged.accept(selectedColumns);
+            }
         });
 
         // Listen to filter changes
@@ -165,7 +173,8 @@ public class ReportDesignPanel {
         return new ReportConfiguration(
             currentTableName,
             columnSelection.getSelectedColumns(),
-            filterBuilder.getWhereClause()
+            filterBuilder.getWhereClause(),
+            filterBuilder.getFilterConditions()
         );
     }
 
@@ -177,6 +186,10 @@ public class ReportDesignPanel {
         this.onFilterChanged = onFilterChanged;
     }
 
+    public void setOnColumnsChanged(Consumer<List<String>> onColumnsChanged) {
+        this.onColumnsChanged = onColumnsChanged;
+    }
+
     public Node getNode() {
         return scrollPane;
     }
@@ -189,15 +202,23 @@ public class ReportDesignPanel {
         private final String tableName;
         private final List<String> selectedColumns;
         private final String whereClause;
+        private final List<FilterCondition> filterConditions;
 
         public ReportConfiguration(String tableName, List<String> selectedColumns, String whereClause) {
+            this(tableName, selectedColumns, whereClause, Collections.emptyList());
+        }
+
+        public ReportConfiguration(String tableName, List<String> selectedColumns, String whereClause,
+                                   List<FilterCondition> filterConditions) {
             this.tableName = tableName;
             this.selectedColumns = selectedColumns;
             this.whereClause = whereClause;
+            this.filterConditions = filterConditions;
         }
 
         public String getTableName() { return tableName; }
         public List<String> getSelectedColumns() { return selectedColumns; }
         public String getWhereClause() { return whereClause; }
+        public List<FilterCondition> getFilterConditions() { return filterConditions; }
     }
 }
\ No newline at end of file
@@ -2,21 +2,33 @@ package de.reports.gui;
 
 import de.reports.database.ColumnInfo;
 import de.reports.database.DatabaseManager;
-import de.reports.database.QueryResult;
+import de.reports.database.FilterCondition;
+import de.reports.database.QueryHandle;
+import de.reports.database.RowCountProvider;
+import de.reports.database.snapshot.SnapshotStore;
+import de.reports.database.snapshot.TableSnapshot;
 import de.reports.gui.components.PaginationComponent;
 import de.reports.gui.components.TableListComponent;
 import de.reports.gui.components.TablePreviewComponent;
 import de.reports.i18n.MessageBundle;
+import de.reports.utils.ConfigManager;
+import de.reports.utils.TaskScheduler;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -26,6 +38,7 @@ import java.util.function.Consumer;
  * This is the refactored main panel that coordinates between:
  * - TableListComponent (table list and search)
  * - TablePreviewComponent (data preview with pagination)
+ * - Local table snapshots (opt-in, refreshed on demand)
  * - Component communication and state management
  *
  * Responsibilities:
@@ -36,12 +49,18 @@ import java.util.function.Consumer;
  */
 public class TableSelectionPanel {
     private static final Logger logger = LoggerFactory.getLogger(TableSelectionPanel.class);
+    private static final DateTimeFormatter SNAPSHOT_TIME_FORMAT =
+        DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
 
     // UI Components
     private VBox container;
     private Label titleLabel;
     private Label statusLabel;
     private ProgressIndicator progressIndicator;
+    private HBox snapshotBar;
+    private CheckBox useSnapshotCheckBox;
+    private Button refreshSnapshotButton;
+    private Label snapshotInfoLabel;
 
     // Modular Components
     private TableListComponent tableListComponent;
@@ -52,6 +71,8 @@ public class TableSelectionPanel {
     private Consumer<String> onTableSelected;
     private List<ColumnInfo> currentTableColumns;
     private String selectedTableName;
+    private SnapshotStore snapshotStore;
+    private QueryHandle snapshotCapture;
 
     public TableSelectionPanel() {
         initializeComponents();
@@ -76,6 +97,15 @@ public class TableSelectionPanel {
         progressIndicator.setVisible(false);
         progressIndicator.setPrefSize(20, 20);
 
+        // Local snapshot - preview from a local copy instead of the production database
+        useSnapshotCheckBox = new CheckBox(MessageBundle.getMessage("table.snapshot.use"));
+        refreshSnapshotButton = new Button(MessageBundle.getMessage("table.snapshot.refresh"));
+        refreshSnapshotButton.setDisable(true);
+        snapshotInfoLabel = new Label();
+        snapshotInfoLabel.getStyleClass().add("status-label");
+        snapshotBar = new HBox(10, useSnapshotCheckBox, refreshSnapshotButton, snapshotInfoLabel);
+        snapshotBar.setAlignment(Pos.CENTER_LEFT);
+
         // Initialize modular components
         tableListComponent = new TableListComponent();
         tablePreviewComponent = new TablePreviewComponent();
@@ -86,6 +116,7 @@ public class TableSelectionPanel {
             titleLabel,
             statusLabel,
             tableListComponent.getContainer(),
+            snapshotBar,
             tablePreviewComponent.getContainer()
         );
 
@@ -99,6 +130,14 @@ public class TableSelectionPanel {
         // Status update callbacks
         tableListComponent.setStatusUpdateCallback(this::updateStatus);
         tablePreviewComponent.setStatusUpdateCallback(this::updateStatus);
+
+        // Snapshot controls
+        useSnapshotCheckBox.setOnAction(e -> onUseSnapshotChanged());
+        refreshSnapshotButton.setOnAction(e -> {
+            if (selectedTableName != null) {
+                captureSnapshot(selectedTableName);
+            }
+        });
     }
 
     /**
@@ -123,23 +162,26 @@ public class TableSelectionPanel {
                 currentTableColumns = databaseManager.getTableColumns(tableName);
                 logger.info("Loaded {} columns for table {}", currentTableColumns.size(), tableName);
 
-                // Get total record count for pagination
-                QueryResult countResult = databaseManager.executeQuery(
-                    "SELECT COUNT(*) as total_count FROM " + tableName
-                );
-
-                long totalRecords = 0;
-                if (!countResult.getData().isEmpty()) {
-                    Object countValue = countResult.getData().get(0).get("total_count");
-                    totalRecords = countValue instanceof Number ? ((Number) countValue).longValue() : 0;
-                }
-                final long finalTotalRecords = totalRecords;
+                // Instant record count from metadata - exact count is loaded on demand;
+                // an exact count from an earlier visit may be outdated by now
+                databaseManager.invalidateRecordCount(tableName);
+                RowCountProvider.RowCount rowCount = databaseManager.getInstantRecordCount(tableName);
+                TableSnapshot snapshot = useSnapshotCheckBox.isSelected() && snapshotStore != null
+                    ? snapshotStore.open(tableName)
+                    : null;
 
                 Platform.runLater(() -> {
-                    // Initialize table preview with total record count
-                    tablePreviewComponent.loadTablePreview(tableName, finalTotalRecords);
-
-                    updateStatus("Tabelle '" + tableName + "' geladen (" + finalTotalRecords + " Datensätze total)");
+                    if (snapshot != null) {
+                        tablePreviewComponent.loadSnapshotPreview(snapshot);
+                        buildTextIndexes(snapshot);
+                        updateStatus("Tabelle '" + tableName + "' aus lokalem Snapshot geladen ("
+                            + snapshot.getRowCount() + " Datensätze)");
+                    } else {
+                        // Initialize table preview with total record count
+                        tablePreviewComponent.loadTablePreview(tableName, rowCount.getCount(), !rowCount.isExact());
+                        updateStatus("Tabelle '" + tableName + "' geladen (" + formatRowCount(rowCount) + " Datensätze total)");
+                    }
+                    updateSnapshotInfo(snapshot);
                     setLoading(false);
 
                     // Notify parent that table was selected
@@ -161,17 +203,25 @@ public class TableSelectionPanel {
             }
         };
 
-        Thread loadThread = new Thread(loadTableTask);
-        loadThread.setDaemon(true);
-        loadThread.start();
+        TaskScheduler.getInstance().execute(
+            TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.HIGH, loadTableTask);
     }
 
     /**
      * Show filtered data in preview component
      */
-    public void showFilteredData(String tableName, String whereClause) {
+    public void showFilteredData(String tableName, List<FilterCondition> filterConditions) {
+        if (tablePreviewComponent != null) {
+            tablePreviewComponent.showFilteredData(tableName, filterConditions);
+        }
+    }
+
+    /**
+     * Restrict the preview to the columns selected for the report
+     */
+    public void setPreviewColumns(List<String> columns) {
         if (tablePreviewComponent != null) {
-            tablePreviewComponent.showFilteredData(tableName, whereClause);
+            tablePreviewComponent.setProjection(columns);
         }
     }
 
@@ -179,24 +229,21 @@ public class TableSelectionPanel {
      * Clear any active filters and return to normal table view
      */
     public void clearFilters() {
+        TableSnapshot snapshot = tablePreviewComponent != null ? tablePreviewComponent.getSnapshot() : null;
+        if (snapshot != null && snapshot.getTableName().equals(selectedTableName) && useSnapshotCheckBox.isSelected()) {
+            tablePreviewComponent.loadSnapshotPreview(snapshot);
+            updateStatus("Filter entfernt - zurück zur Originalansicht");
+            return;
+        }
         if (selectedTableName != null && tablePreviewComponent != null) {
             // Get total record count again
             Task<Void> clearFilterTask = new Task<Void>() {
                 @Override
                 protected Void call() throws Exception {
-                    QueryResult countResult = databaseManager.executeQuery(
-                        "SELECT COUNT(*) as total_count FROM " + selectedTableName
-                    );
-
-                    long totalRecords = 0;
-                    if (!countResult.getData().isEmpty()) {
-                        Object countValue = countResult.getData().get(0).get("total_count");
-                        totalRecords = countValue instanceof Number ? ((Number) countValue).longValue() : 0;
-                    }
-                    final long finalTotalRecords = totalRecords;
+                    RowCountProvider.RowCount rowCount = databaseManager.getInstantRecordCount(selectedTableName);
 
                     Platform.runLater(() -> {
-                        tablePreviewComponent.loadTablePreview(selectedTableName, finalTotalRecords);
+                        tablePreviewComponent.loadTablePreview(selectedTableName, rowCount.getCount(), !rowCount.isExact());
                         updateStatus("Filter entfernt - zurück zur Originalansicht");
                     });
 
@@ -212,15 +259,176 @@ public class TableSelectionPanel {
                 }
             };
 
-            Thread clearThread = new Thread(clearFilterTask);
-            clearThread.setDaemon(true);
-            clearThread.start();
+            TaskScheduler.getInstance().execute(
+                TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.HIGH, clearFilterTask);
         } else {
             updateStatus("Filter entfernt");
         }
     }
 
+    /**
+     * Switch the preview between the local snapshot and the database
+     */
+    private void onUseSnapshotChanged() {
+        if (selectedTableName == null || snapshotStore == null) {
+            return;
+        }
+        if (!useSnapshotCheckBox.isSelected()) {
+            updateSnapshotInfo(null);
+            clearFilters();
+            return;
+        }
+
+        String tableName = selectedTableName;
+        Task<TableSnapshot> openTask = new Task<TableSnapshot>() {
+            @Override
+            protected TableSnapshot call() throws Exception {
+                return snapshotStore.open(tableName);
+            }
+
+            @Override
+            protected void succeeded() {
+                Platform.runLater(() -> {
+                    if (!tableName.equals(selectedTableName)) {
+                        return;
+                    }
+                    TableSnapshot snapshot = getValue();
+                    if (snapshot == null) {
+                        // First use for this table - pull it once
+                        captureSnapshot(tableName);
+                        return;
+                    }
+                    tablePreviewComponent.loadSnapshotPreview(snapshot);
+                    buildTextIndexes(snapshot);
+                    updateSnapshotInfo(snapshot);
+                });
+            }
+
+            @Override
+            protected void failed() {
+                Platform.runLater(() -> {
+                    updateStatus("Snapshot konnte nicht geöffnet werden: " + getException().getMessage());
+                    logger.error("Failed to open snapshot of table: " + tableName, getException());
+                });
+            }
+        };
+
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.HIGH, openTask);
+    }
+
+    /**
+     * Create or refresh the local snapshot of the table (bulk lane). An existing
+     * snapshot only pulls the changed rows if the table has change tracking or a
+     * rowversion column, otherwise the table is read again.
+     */
+    private void captureSnapshot(String tableName) {
+        if (snapshotStore == null || snapshotCapture != null) {
+            return;
+        }
+        QueryHandle handle = new QueryHandle();
+        snapshotCapture = handle;
+        refreshSnapshotButton.setDisable(true);
+        setLoading(true);
+        updateStatus("Aktualisiere Snapshot von " + tableName + "...");
+
+        Task<SnapshotStore.RefreshResult> captureTask = new Task<SnapshotStore.RefreshResult>() {
+            @Override
+            protected SnapshotStore.RefreshResult call() throws Exception {
+                return snapshotStore.refresh(databaseManager, tableName, handle, rows ->
+                    Platform.runLater(() -> updateStatus("Snapshot von " + tableName + ": " + rows + " Datensätze geschrieben...")));
+            }
+
+            @Override
+            protected void succeeded() {
+                Platform.runLater(() -> {
+                    finishCapture();
+                    SnapshotStore.RefreshResult result = getValue();
+                    TableSnapshot snapshot = result.getSnapshot();
+                    if (result.isIncremental()) {
+                        updateStatus("Snapshot von " + tableName + " aktualisiert (" + result.getChangedRows()
+                            + " geändert, " + result.getDeletedRows() + " gelöscht, "
+                            + snapshot.getRowCount() + " Datensätze)");
+                    } else {
+                        updateStatus("Snapshot von " + tableName + " erstellt (" + snapshot.getRowCount() + " Datensätze)");
+                    }
+                    if (snapshot == tablePreviewComponent.getSnapshot()) {
+                        updateSnapshotInfo(snapshot); // unchanged
+                    } else if (tableName.equals(selectedTableName) && useSnapshotCheckBox.isSelected()) {
+                        tablePreviewComponent.loadSnapshotPreview(snapshot);
+                        buildTextIndexes(snapshot);
+                        updateSnapshotInfo(snapshot);
+                    }
+                });
+            }
+
+            @Override
+            protected void failed() {
+                Platform.runLater(() -> {
+                    finishCapture();
+                    updateStatus("Fehler beim Erstellen des Snapshots: " + getException().getMessage());
+                    logger.error("Failed to capture snapshot of table: " + tableName, getException());
+                });
+            }
+        };
+
+        // Full table read - bulk lane like exports
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.BULK, TaskScheduler.Priority.NORMAL, captureTask);
+    }
+
+    /**
+     * Index the configured text columns of a snapshot in the background, so the first
+     * text filter on them does not pay for it
+     */
+    private void buildTextIndexes(TableSnapshot snapshot) {
+        List<String> columns = ConfigManager.getInstance().getSnapshotTextIndexColumns();
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        Task<Integer> indexTask = new Task<Integer>() {
+            @Override
+            protected Integer call() throws Exception {
+                return snapshot.buildTextIndexes(columns);
+            }
+
+            @Override
+            protected void succeeded() {
+                logger.debug("Indexed {} text columns of snapshot {}", getValue(), snapshot.getTableName());
+            }
+
+            @Override
+            protected void failed() {
+                logger.warn("Failed to index text columns of snapshot: " + snapshot.getTableName(), getException());
+            }
+        };
+
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.BACKGROUND, TaskScheduler.Priority.LOW, indexTask);
+    }
+
+    private void finishCapture() {
+        snapshotCapture = null;
+        refreshSnapshotButton.setDisable(selectedTableName == null);
+        setLoading(false);
+    }
+
+    private void updateSnapshotInfo(TableSnapshot snapshot) {
+        refreshSnapshotButton.setDisable(selectedTableName == null || snapshotCapture != null);
+        if (snapshot != null) {
+            snapshotInfoLabel.setText(MessageBundle.getMessage("table.snapshot.captured",
+                SNAPSHOT_TIME_FORMAT.format(snapshot.getCapturedAt()),
+                String.valueOf(snapshot.getRowCount())));
+        } else if (useSnapshotCheckBox.isSelected()) {
+            snapshotInfoLabel.setText(MessageBundle.getMessage("table.snapshot.none"));
+        } else {
+            snapshotInfoLabel.setText("");
+        }
+    }
+
     // Helper methods
+    private String formatRowCount(RowCountProvider.RowCount rowCount) {
+        return rowCount.isExact() ? String.valueOf(rowCount.getCount()) : "ca. " + rowCount.getCount();
+    }
+
     private void updateStatus(String message) {
         statusLabel.setText(message);
     }
@@ -236,6 +444,9 @@ public class TableSelectionPanel {
 
     public void setDatabaseManager(DatabaseManager databaseManager) {
         this.databaseManager = databaseManager;
+        this.snapshotStore = databaseManager != null && databaseManager.getConnectionInfo() != null
+            ? SnapshotStore.forConnection(databaseManager.getConnectionInfo())
+            : null;
 
         // Distribute database manager to components
         tableListComponent.setDatabaseManager(databaseManager);
@@ -243,6 +454,9 @@ public class TableSelectionPanel {
     }
 
     public void refreshTables() {
+        if (databaseManager != null) {
+            databaseManager.refreshMetadata();
+        }
         if (tableListComponent != null) {
             tableListComponent.refreshTables();
         }
@@ -296,6 +510,7 @@ public class TableSelectionPanel {
         }
         selectedTableName = null;
         currentTableColumns = null;
+        updateSnapshotInfo(null);
         updateStatus("Bereit");
     }
 }
\ No newline at end of file
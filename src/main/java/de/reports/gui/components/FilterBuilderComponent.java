@@ -2,6 +2,9 @@ package de.reports.gui.components;
 
 import de.reports.database.ColumnInfo;
 import de.reports.i18n.MessageBundle;
+import de.reports.utils.ConfigManager;
+import de.reports.utils.DecodingDictionary;
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -9,7 +12,10 @@ import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -36,8 +42,14 @@ public class FilterBuilderComponent {
     // Callbacks
     private Consumer<String> onSqlChanged;
 
+    // Filter changes are applied after a quiet period, unchanged filters not again
+    private PauseTransition applyDelay;
+    private List<de.reports.database.FilterCondition> appliedConditions = new ArrayList<>();
+
     public FilterBuilderComponent() {
         filterConditions = FXCollections.observableArrayList();
+        applyDelay = new PauseTransition(Duration.millis(ConfigManager.getInstance().getFilterApplyDelayMillis()));
+        applyDelay.setOnFinished(e -> applyFilters());
         initializeComponents();
         setupLayout();
         setupEventHandlers();
@@ -183,6 +195,17 @@ public class FilterBuilderComponent {
                 availableColumns.stream().map(ColumnInfo::getName).collect(Collectors.toList())
             ));
         }
+        columnCombo.setConverter(new StringConverter<String>() {
+            @Override
+            public String toString(String columnName) {
+                return columnName != null ? DecodingDictionary.getInstance().getDisplayName(columnName) : "";
+            }
+
+            @Override
+            public String fromString(String text) {
+                return text;
+            }
+        });
         columnCombo.setValue(condition.getColumn());
         columnCombo.setPrefWidth(120);
 
@@ -224,6 +247,9 @@ public class FilterBuilderComponent {
             filterConditions.set(filterConditions.indexOf(condition), condition);
         });
 
+        // Enter applies right away instead of waiting for the quiet period
+        valueField.setOnAction(e -> applyFilters());
+
         logicCombo.setOnAction(e -> {
             condition.setLogic(logicCombo.getValue());
             filterConditions.set(filterConditions.indexOf(condition), condition);
@@ -254,6 +280,9 @@ public class FilterBuilderComponent {
     }
 
     private void updateSqlPreview() {
+        // Every keystroke lands here - query only once typing pauses
+        applyDelay.playFromStart();
+
         if (filterConditions.isEmpty()) {
             sqlPreview.setText("-- Keine Filter aktiv");
             return;
@@ -284,18 +313,74 @@ public class FilterBuilderComponent {
         }
 
         sqlPreview.setText(sql.toString());
+    }
+
+    /**
+     * Notify listeners of the settled filter, unless the effective conditions are
+     * the ones already applied (e.g. a row without value was added)
+     */
+    private void applyFilters() {
+        applyDelay.stop();
+
+        List<de.reports.database.FilterCondition> conditions = getFilterConditions();
+        if (conditions.equals(appliedConditions)) {
+            return;
+        }
+        appliedConditions = conditions;
 
         if (onSqlChanged != null) {
-            onSqlChanged.accept(sql.toString());
+            onSqlChanged.accept(getWhereClause());
         }
     }
 
     private void updateStatus() {
+        statusLabel.getStyleClass().remove("warning-text");
+
         if (filterConditions.isEmpty()) {
             statusLabel.setText("Keine Filter aktiv");
-        } else {
+            return;
+        }
+
+        List<String> hints = getAccessPathHints();
+        if (hints.isEmpty()) {
             statusLabel.setText(filterConditions.size() + " Filter aktiv");
+        } else {
+            statusLabel.setText(filterConditions.size() + " Filter aktiv - " + String.join("; ", hints));
+            statusLabel.getStyleClass().add("warning-text");
+        }
+    }
+
+    /**
+     * Hints for filters that cannot seek on an index: leading-wildcard LIKE,
+     * negations and columns that do not lead any index
+     */
+    private List<String> getAccessPathHints() {
+        List<String> hints = new ArrayList<>();
+
+        for (FilterCondition condition : filterConditions) {
+            String operator = condition.getOperator();
+            if ("LIKE".equals(operator) || "NOT LIKE".equals(operator) || "!=".equals(operator)) {
+                hints.add(MessageBundle.getMessage("report.filter.hint.nonsargable", condition.getColumn(), operator));
+                continue;
+            }
+
+            ColumnInfo column = findColumn(condition.getColumn());
+            if (column != null && !column.isIndexed()) {
+                hints.add(MessageBundle.getMessage("report.filter.hint.unindexed", column.getName()));
+            }
         }
+
+        return hints;
+    }
+
+    private ColumnInfo findColumn(String columnName) {
+        if (availableColumns == null || columnName == null) {
+            return null;
+        }
+        return availableColumns.stream()
+            .filter(col -> col.getName().equalsIgnoreCase(columnName))
+            .findFirst()
+            .orElse(null);
     }
 
     private boolean hasColumn(String columnName) {
@@ -314,6 +399,8 @@ public class FilterBuilderComponent {
     // Public API
     public void setAvailableColumns(List<ColumnInfo> columns) {
         this.availableColumns = columns;
+        // A newly selected table is shown unfiltered
+        this.appliedConditions = new ArrayList<>();
         updateStatus();
     }
 
@@ -324,6 +411,50 @@ public class FilterBuilderComponent {
         return sqlPreview.getText();
     }
 
+    /**
+     * Active filters as database conditions; values are bound as parameters, not
+     * written into the SQL. Rows without a value are skipped.
+     */
+    public List<de.reports.database.FilterCondition> getFilterConditions() {
+        List<de.reports.database.FilterCondition> conditions = new ArrayList<>();
+
+        for (FilterCondition condition : filterConditions) {
+            de.reports.database.FilterCondition dbCondition = new de.reports.database.FilterCondition(
+                condition.getColumn(),
+                getColumnType(condition.getColumn()),
+                toOperator(condition.getOperator()),
+                // Labels such as "rot" are filtered by their code
+                DecodingDictionary.getInstance().encode(condition.getColumn(), condition.getValue()),
+                "OR".equals(condition.getLogic())
+                    ? de.reports.database.FilterCondition.LogicalOperator.OR
+                    : de.reports.database.FilterCondition.LogicalOperator.AND);
+
+            if (dbCondition.isValid()) {
+                conditions.add(dbCondition);
+            }
+        }
+
+        return conditions;
+    }
+
+    private de.reports.database.FilterCondition.Operator toOperator(String operator) {
+        switch (operator) {
+            case "!=": return de.reports.database.FilterCondition.Operator.NOT_EQUALS;
+            case "LIKE": return de.reports.database.FilterCondition.Operator.CONTAINS;
+            case "NOT LIKE": return de.reports.database.FilterCondition.Operator.NOT_CONTAINS;
+            case ">": return de.reports.database.FilterCondition.Operator.GREATER_THAN;
+            case "<": return de.reports.database.FilterCondition.Operator.LESS_THAN;
+            case ">=": return de.reports.database.FilterCondition.Operator.GREATER_THAN_OR_EQUAL;
+            case "<=": return de.reports.database.FilterCondition.Operator.LESS_THAN_OR_EQUAL;
+            default: return de.reports.database.FilterCondition.Operator.EQUALS;
+        }
+    }
+
+    private String getColumnType(String columnName) {
+        ColumnInfo column = findColumn(columnName);
+        return column != null ? column.getDataType() : null;
+    }
+
     public void setOnSqlChanged(Consumer<String> callback) {
         this.onSqlChanged = callback;
     }
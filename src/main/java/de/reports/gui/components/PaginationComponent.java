@@ -20,6 +20,7 @@ import org.slf4j.LoggerFactory;
  * - Page number display and input
  * - Records per page selection
  * - Total records and pages info
+ * - Count-free mode ("Seite X") driven by has-next detection
  * - Callback interface for page changes
  */
 public class PaginationComponent {
@@ -36,12 +37,20 @@ public class PaginationComponent {
     private Button lastPageButton;
     private ComboBox<Integer> recordsPerPageCombo;
     private Label totalRecordsLabel;
+    private Hyperlink exactCountLink;
 
     // Pagination State
     private int currentPage = 1;
     private int totalPages = 1;
     private int recordsPerPage = 100;
     private long totalRecords = 0;
+    private boolean totalApproximate = false;
+    private int pendingPage = 0;
+
+    // Count-free mode: no total, navigation driven by the loaded page
+    private boolean countFree = false;
+    private boolean hasNextPage = false;
+    private int pageRowCount = 0;
 
     // Callback Interface
     private PaginationCallback callback;
@@ -49,6 +58,13 @@ public class PaginationComponent {
     public interface PaginationCallback {
         void onPageChanged(int page, int recordsPerPage);
         void onRecordsPerPageChanged(int recordsPerPage);
+
+        /**
+         * Called when the total is approximate and an exact count is needed,
+         * either on user request or to navigate beyond the estimated last page
+         */
+        default void onExactCountRequested() {
+        }
     }
 
     // Constructor
@@ -96,6 +112,12 @@ public class PaginationComponent {
 
         // Total records label
         totalRecordsLabel = new Label();
+
+        // Exact count on demand (only shown while the total is an estimate)
+        exactCountLink = new Hyperlink(MessageBundle.getMessage("pagination.count.exact"));
+        exactCountLink.setTooltip(new Tooltip(MessageBundle.getMessage("pagination.count.exact.tooltip")));
+        exactCountLink.setVisible(false);
+        exactCountLink.managedProperty().bind(exactCountLink.visibleProperty());
     }
 
     private void setupLayout() {
@@ -126,10 +148,14 @@ public class PaginationComponent {
             recordsPerPageCombo
         );
 
+        // Total records info with optional exact count link
+        HBox totalsBox = new HBox(5, totalRecordsLabel, exactCountLink);
+        totalsBox.setAlignment(Pos.CENTER_LEFT);
+
         // Add to container
         container.getChildren().addAll(
             controlsBox,
-            totalRecordsLabel
+            totalsBox
         );
     }
 
@@ -143,8 +169,17 @@ public class PaginationComponent {
         // Next page
         nextPageButton.setOnAction(e -> goToPage(currentPage + 1));
 
-        // Last page
-        lastPageButton.setOnAction(e -> goToPage(totalPages));
+        // Last page - needs the exact total if the current one is an estimate or unknown
+        lastPageButton.setOnAction(e -> {
+            if (totalApproximate || countFree) {
+                requestExactCount(Integer.MAX_VALUE);
+            } else {
+                goToPage(totalPages);
+            }
+        });
+
+        // Exact count on demand
+        exactCountLink.setOnAction(e -> requestExactCount(0));
 
         // Page input
         pageInputField.setOnAction(e -> {
@@ -172,6 +207,24 @@ public class PaginationComponent {
     }
 
     private void goToPage(int page) {
+        if (countFree) {
+            // Only known to exist: pages up to the current one and its successor
+            if (page < 1 || page > currentPage + 1 || (page > currentPage && !hasNextPage)) {
+                pageInputField.setText(String.valueOf(currentPage));
+                return;
+            }
+            currentPage = page;
+            updateUI();
+            if (callback != null) {
+                callback.onPageChanged(currentPage, recordsPerPage);
+            }
+            return;
+        }
+        if (page > totalPages && totalApproximate) {
+            // Estimated total may be too low - refine before giving up
+            requestExactCount(page);
+            return;
+        }
         if (page < 1 || page > totalPages) {
             return;
         }
@@ -184,12 +237,24 @@ public class PaginationComponent {
         }
     }
 
+    private void requestExactCount(int targetPage) {
+        pendingPage = targetPage;
+        exactCountLink.setDisable(true);
+        if (callback != null) {
+            callback.onExactCountRequested();
+        }
+    }
+
     public void updatePagination() {
         calculateTotalPages();
         updateUI();
     }
 
     private void calculateTotalPages() {
+        if (countFree) {
+            totalPages = Math.max(currentPage, 1);
+            return;
+        }
         if (totalRecords == 0) {
             totalPages = 1;
         } else {
@@ -209,6 +274,11 @@ public class PaginationComponent {
         // Page input
         pageInputField.setText(String.valueOf(currentPage));
 
+        if (countFree) {
+            updateCountFreeUI();
+            return;
+        }
+
         // Page info
         pageInfoLabel.setText(MessageBundle.getMessage("pagination.page.info",
             String.valueOf(currentPage), String.valueOf(totalPages)));
@@ -216,17 +286,40 @@ public class PaginationComponent {
         // Button states
         firstPageButton.setDisable(currentPage <= 1);
         previousPageButton.setDisable(currentPage <= 1);
-        nextPageButton.setDisable(currentPage >= totalPages);
-        lastPageButton.setDisable(currentPage >= totalPages);
+        nextPageButton.setDisable(currentPage >= totalPages && !totalApproximate);
+        lastPageButton.setDisable(currentPage >= totalPages && !totalApproximate);
 
         // Total records info
         long startRecord = (currentPage - 1) * recordsPerPage + 1;
         long endRecord = Math.min(currentPage * recordsPerPage, totalRecords);
 
-        totalRecordsLabel.setText(MessageBundle.getMessage("pagination.records.info",
+        totalRecordsLabel.setText(MessageBundle.getMessage(
+            totalApproximate ? "pagination.records.info.approximate" : "pagination.records.info",
             String.valueOf(startRecord),
             String.valueOf(endRecord),
             String.valueOf(totalRecords)));
+
+        exactCountLink.setVisible(totalApproximate);
+        exactCountLink.setDisable(pendingPage != 0);
+    }
+
+    private void updateCountFreeUI() {
+        pageInfoLabel.setText(MessageBundle.getMessage("pagination.page.info.open",
+            String.valueOf(currentPage), hasNextPage ? "+" : ""));
+
+        firstPageButton.setDisable(currentPage <= 1);
+        previousPageButton.setDisable(currentPage <= 1);
+        nextPageButton.setDisable(!hasNextPage);
+        lastPageButton.setDisable(!hasNextPage || pendingPage != 0);
+
+        long startRecord = pageRowCount > 0 ? (long) (currentPage - 1) * recordsPerPage + 1 : 0;
+        long endRecord = (long) (currentPage - 1) * recordsPerPage + pageRowCount;
+        totalRecordsLabel.setText(MessageBundle.getMessage("pagination.records.info.open",
+            String.valueOf(startRecord),
+            String.valueOf(endRecord)));
+
+        exactCountLink.setVisible(true);
+        exactCountLink.setDisable(pendingPage != 0);
     }
 
     // Public API
@@ -239,11 +332,79 @@ public class PaginationComponent {
     }
 
     public void setTotalRecords(long totalRecords) {
+        setTotalRecords(totalRecords, false);
+    }
+
+    /**
+     * Set the total record count; approximate totals are shown as such and
+     * refined through PaginationCallback.onExactCountRequested when needed
+     */
+    public void setTotalRecords(long totalRecords, boolean approximate) {
+        this.countFree = false;
         this.totalRecords = totalRecords;
+        this.totalApproximate = approximate;
+
+        int targetPage = pendingPage;
+        pendingPage = 0;
+        updatePagination();
+
+        // Continue a navigation that was waiting for the exact count
+        if (!approximate && targetPage > 0) {
+            goToPage(Math.min(targetPage, totalPages));
+        }
+    }
+
+    /**
+     * Drop a navigation that was waiting for the exact count (the count failed),
+     * so the count link and the last page button can be used again
+     */
+    public void cancelPendingPage() {
+        pendingPage = 0;
+        updatePagination();
+    }
+
+    /**
+     * Switch to count-free navigation on page 1: "Seite X" without a total, the
+     * next page is enabled through setPageResult; leaving it takes setTotalRecords
+     */
+    public void startCountFree() {
+        countFree = true;
+        currentPage = 1;
+        totalRecords = 0;
+        totalApproximate = false;
+        hasNextPage = false;
+        pageRowCount = 0;
+        pendingPage = 0;
+        updatePagination();
+    }
+
+    /**
+     * Report the loaded page in count-free mode
+     */
+    public void setPageResult(int page, int rowCount, boolean hasNextPage) {
+        this.currentPage = Math.max(page, 1);
+        this.pageRowCount = rowCount;
+        this.hasNextPage = hasNextPage;
         updatePagination();
     }
 
+    public boolean isCountFree() {
+        return countFree;
+    }
+
+    /**
+     * Whether a navigation is waiting for the exact count (setTotalRecords will perform it)
+     */
+    public boolean hasPendingPage() {
+        return pendingPage != 0;
+    }
+
     public void setCurrentPage(int page) {
+        if (countFree) {
+            currentPage = Math.max(page, 1);
+            updateUI();
+            return;
+        }
         if (page >= 1 && page <= totalPages) {
             currentPage = page;
             updateUI();
@@ -273,10 +434,17 @@ public class PaginationComponent {
         return totalRecords;
     }
 
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+
     // Reset pagination
     public void reset() {
+        countFree = false;
         currentPage = 1;
         totalRecords = 0;
+        totalApproximate = false;
+        pendingPage = 0;
         updatePagination();
     }
 }
\ No newline at end of file
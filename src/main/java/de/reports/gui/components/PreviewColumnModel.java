@@ -0,0 +1,147 @@
+package de.reports.gui.components;
+
+import de.reports.database.TruncatedValue;
+import de.reports.utils.DecodingDictionary;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Pos;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.Tooltip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Preview table columns for one result schema.
+ *
+ * Display name, alignment and value formatter of every column are resolved
+ * once when the model is built, so cells only apply them. The TableColumns are
+ * reused for all pages / blocks with the same set of columns, whatever their
+ * order, so columns the user moved or resized stay as they are; only a
+ * different schema builds a new model.
+ */
+public class PreviewColumnModel {
+    private final Set<String> columnNames;
+    private final List<TableColumn<Map<String, Object>, Object>> tableColumns = new ArrayList<>();
+
+    private PreviewColumnModel(List<String> columnNames) {
+        this.columnNames = Collections.unmodifiableSet(new HashSet<>(columnNames));
+    }
+
+    /**
+     * Build the columns for the given result columns
+     *
+     * @param columnNames result columns in result order
+     * @param dictionary  display names, alignment and value labels of the columns
+     * @param onOpenValue called with column and row when a truncated value is double-clicked
+     */
+    public static PreviewColumnModel build(List<String> columnNames, DecodingDictionary dictionary,
+                                           BiConsumer<String, Map<String, Object>> onOpenValue) {
+        PreviewColumnModel model = new PreviewColumnModel(columnNames);
+
+        for (String columnName : columnNames) {
+            // Skip ID column - not needed for preview
+            if ("id".equalsIgnoreCase(columnName)) {
+                continue;
+            }
+
+            DecodingDictionary.ColumnDecoding decoding = dictionary.getColumn(columnName);
+            Function<Object, String> formatter = decoding != null && decoding.hasValueLabels()
+                ? decoding::decode
+                : Object::toString;
+            ColumnRenderer renderer = new ColumnRenderer(
+                columnName,
+                decoding != null && decoding.isCentered() ? Pos.CENTER : Pos.CENTER_LEFT,
+                formatter);
+
+            TableColumn<Map<String, Object>, Object> column = new TableColumn<>(dictionary.getDisplayName(columnName));
+            column.setCellValueFactory(cellData ->
+                new SimpleObjectProperty<>(cellData.getValue().get(renderer.columnName)));
+            column.setCellFactory(col -> new PreviewCell(renderer, onOpenValue));
+            model.tableColumns.add(column);
+        }
+
+        return model;
+    }
+
+    /**
+     * Whether this model was built for the same result columns; cells look values
+     * up by name, so the order does not matter
+     */
+    public boolean matches(List<String> otherColumnNames) {
+        return columnNames.equals(new HashSet<>(otherColumnNames));
+    }
+
+    /**
+     * Whether the table shows exactly the columns of this model, in any order
+     */
+    public boolean isShownIn(List<? extends TableColumn<Map<String, Object>, ?>> shownColumns) {
+        return shownColumns.size() == tableColumns.size() && new HashSet<>(shownColumns).containsAll(tableColumns);
+    }
+
+    public List<TableColumn<Map<String, Object>, Object>> getTableColumns() {
+        return tableColumns;
+    }
+
+    public void setSortable(boolean sortable) {
+        for (TableColumn<Map<String, Object>, Object> column : tableColumns) {
+            column.setSortable(sortable);
+        }
+    }
+
+    /**
+     * Everything a cell needs to render a column, resolved up front
+     */
+    private static class ColumnRenderer {
+        private final String columnName;
+        private final Pos alignment;
+        private final Function<Object, String> formatter;
+
+        ColumnRenderer(String columnName, Pos alignment, Function<Object, String> formatter) {
+            this.columnName = columnName;
+            this.alignment = alignment;
+            this.formatter = formatter;
+        }
+    }
+
+    private static class PreviewCell extends TableCell<Map<String, Object>, Object> {
+        private final ColumnRenderer renderer;
+
+        PreviewCell(ColumnRenderer renderer, BiConsumer<String, Map<String, Object>> onOpenValue) {
+            this.renderer = renderer;
+            setAlignment(renderer.alignment);
+
+            // Large values are only previewed - double click loads the full value
+            setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && getItem() instanceof TruncatedValue
+                        && getTableRow() != null && getTableRow().getItem() != null) {
+                    onOpenValue.accept(renderer.columnName, getTableRow().getItem());
+                }
+            });
+        }
+
+        @Override
+        protected void updateItem(Object item, boolean empty) {
+            super.updateItem(item, empty);
+            setTooltip(null);
+            if (empty || item == null) {
+                setText(null);
+            } else if (item instanceof TruncatedValue) {
+                TruncatedValue value = (TruncatedValue) item;
+                setText(value.toString());
+                if (value.isTruncated()) {
+                    setTooltip(new Tooltip("Gekürzt (" + value.getTotalLength()
+                        + (value.isBinary() ? " Bytes" : " Zeichen") + ") - Doppelklick zeigt den vollständigen Wert"));
+                }
+            } else {
+                setText(renderer.formatter.apply(item));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package de.reports.gui.components;
+
+import de.reports.database.ColumnarResult;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hands row batches from a loading thread to the JavaFX application thread.
+ *
+ * At most one UI update is queued at a time; batches offered while it is
+ * pending are delivered with it, so a fast fetch does not flood the event
+ * queue however small its batches are.
+ */
+public class RowBatchAppender {
+    private final Consumer<List<ColumnarResult>> onBatches;
+    private final List<ColumnarResult> pending = new ArrayList<>();
+    private boolean updateQueued = false;
+    private volatile boolean closed = false;
+
+    /**
+     * @param onBatches receives the batches in arrival order on the JavaFX application thread
+     */
+    public RowBatchAppender(Consumer<List<ColumnarResult>> onBatches) {
+        this.onBatches = onBatches;
+    }
+
+    /**
+     * Queue a batch; may be called from any thread
+     */
+    public void offer(ColumnarResult batch) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pending.add(batch);
+            if (updateQueued) {
+                return;
+            }
+            updateQueued = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    /**
+     * Deliver all queued batches now; must be called on the JavaFX application thread
+     */
+    public void flush() {
+        List<ColumnarResult> batches;
+        synchronized (this) {
+            batches = new ArrayList<>(pending);
+            pending.clear();
+            updateQueued = false;
+        }
+        if (!closed && !batches.isEmpty()) {
+            onBatches.accept(batches);
+        }
+    }
+
+    /**
+     * Drop queued and future batches, e.g. when the request was superseded
+     */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            pending.clear();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package de.reports.gui.components;
 
 import de.reports.database.DatabaseManager;
 import de.reports.i18n.MessageBundle;
+import de.reports.utils.TaskScheduler;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -99,8 +100,13 @@ public class TableListComponent {
             }
         });
 
-        // Refresh button handler
-        refreshButton.setOnAction(e -> refreshTables());
+        // Refresh button handler - manual refresh drops cached metadata
+        refreshButton.setOnAction(e -> {
+            if (databaseManager != null) {
+                databaseManager.refreshMetadata();
+            }
+            refreshTables();
+        });
     }
 
     /**
@@ -167,9 +173,8 @@ public class TableListComponent {
             }
         };
 
-        Thread loadThread = new Thread(loadTablesTask);
-        loadThread.setDaemon(true);
-        loadThread.start();
+        TaskScheduler.getInstance().execute(
+            TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.NORMAL, loadTablesTask);
     }
 
 
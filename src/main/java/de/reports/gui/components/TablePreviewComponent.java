@@ -1,14 +1,23 @@
 package de.reports.gui.components;
 
+import de.reports.database.ColumnarResult;
 import de.reports.database.DatabaseManager;
+import de.reports.database.FilterCondition;
+import de.reports.database.KeysetPagination;
+import de.reports.database.ParameterizedQuery;
+import de.reports.database.QueryHandle;
 import de.reports.database.QueryResult;
+import de.reports.database.engine.LocalFilter;
+import de.reports.database.engine.RowBitmap;
+import de.reports.database.snapshot.TableSnapshot;
 import de.reports.i18n.MessageBundle;
+import de.reports.utils.DecodingDictionary;
+import de.reports.utils.TaskScheduler;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
-import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.Priority;
@@ -16,6 +25,8 @@ import javafx.scene.layout.VBox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -25,13 +36,16 @@ import java.util.function.Consumer;
  * Handles data loading, pagination, and table display
  *
  * Features:
- * - Table data preview with pagination
+ * - Table data preview scrolling over all rows, loaded block by block
  * - Dynamic column setup
- * - Filtered data display
+ * - Filtered data display, paged without counting the matches
+ * - Preview from a local table snapshot instead of the database, filtered in memory
  * - Loading states and error handling
  */
 public class TablePreviewComponent {
     private static final Logger logger = LoggerFactory.getLogger(TablePreviewComponent.class);
+    private static final int PREVIEW_BLOCK_SIZE = 200;
+    private static final int PREVIEW_MAX_BLOCKS = 10;
 
     // UI Components
     private VBox container;
@@ -43,6 +57,21 @@ public class TablePreviewComponent {
     // State
     private DatabaseManager databaseManager;
     private String currentTableName;
+    private KeysetPagination keysetPagination;
+    private VirtualRowList virtualRows;
+    private PreviewColumnModel columnModel;
+    private List<String> projection = new ArrayList<>();
+    private List<FilterCondition> activeFilterConditions;
+    private KeysetPagination filteredPagination;
+    private TableSnapshot snapshot;
+    // Filter result on the snapshot: matching row ids, pages are read from the snapshot
+    private RowBitmap snapshotMatches;
+
+    // In-flight page/filter request - a new request supersedes it (latest wins)
+    private Task<?> activeTask;
+    private QueryHandle activeQuery;
+    // Count of the filtered rows - runs next to the page requests, cancelled with its filter
+    private QueryHandle filteredCountQuery;
     private Consumer<String> statusUpdateCallback;
 
     // Constructor
@@ -96,16 +125,39 @@ public class TablePreviewComponent {
         paginationComponent.setCallback(new PaginationComponent.PaginationCallback() {
             @Override
             public void onPageChanged(int page, int recordsPerPage) {
-                if (currentTableName != null) {
-                    loadTableDataPaginated(currentTableName, page, recordsPerPage);
+                if (snapshotMatches != null) {
+                    showSnapshotMatches(page);
+                } else if (currentTableName != null && activeFilterConditions != null) {
+                    loadFilteredPage(currentTableName, activeFilterConditions, page);
+                } else if (currentTableName != null) {
+                    // All rows are in the (virtual) list - a page is just a scroll position
+                    previewTableView.scrollTo((page - 1) * recordsPerPage);
+                    updateStatus("Seite " + page + ": ab Datensatz " + ((page - 1) * recordsPerPage + 1));
                 }
             }
 
             @Override
             public void onRecordsPerPageChanged(int recordsPerPage) {
-                if (currentTableName != null) {
+                if (snapshotMatches != null) {
+                    paginationComponent.setCurrentPage(1);
+                    showSnapshotMatches(1);
+                } else if (currentTableName != null && activeFilterConditions != null) {
+                    // Page boundaries depend on the page size - restart without count
+                    cancelFilteredCount();
+                    paginationComponent.startCountFree();
+                    loadFilteredPage(currentTableName, activeFilterConditions, 1);
+                } else if (currentTableName != null) {
                     // Reset to page 1 when changing records per page
-                    loadTableDataPaginated(currentTableName, 1, recordsPerPage);
+                    previewTableView.scrollTo(0);
+                }
+            }
+
+            @Override
+            public void onExactCountRequested() {
+                if (currentTableName != null && activeFilterConditions != null) {
+                    loadFilteredCount(currentTableName);
+                } else if (currentTableName != null) {
+                    loadExactCount(currentTableName);
                 }
             }
         });
@@ -115,50 +167,99 @@ public class TablePreviewComponent {
      * Load initial table preview data
      */
     public void loadTablePreview(String tableName, long totalRecords) {
+        loadTablePreview(tableName, totalRecords, false);
+    }
+
+    /**
+     * Load initial table preview data with a possibly approximate total
+     */
+    public void loadTablePreview(String tableName, long totalRecords, boolean approximate) {
+        if (!tableName.equals(currentTableName)) {
+            // Column selection belongs to the previous table
+            this.projection = new ArrayList<>();
+        }
         this.currentTableName = tableName;
+        cancelFilteredCount();
+        this.snapshot = null;
+        this.snapshotMatches = null;
+        this.keysetPagination = null;
+        this.activeFilterConditions = null;
+        this.filteredPagination = null;
+        // Pages cached for an earlier view may be outdated
+        databaseManager.invalidatePages(tableName);
 
         // Initialize pagination
-        paginationComponent.setTotalRecords(totalRecords);
+        paginationComponent.setTotalRecords(totalRecords, approximate);
         paginationComponent.setCurrentPage(1);
         paginationComponent.setRecordsPerPage(100);
 
-        // Load first page
-        loadTableDataPaginated(tableName, 1, 100);
+        // Load first block, the rest follows while scrolling
+        loadVirtualRows(tableName);
     }
 
     /**
-     * Load table data with pagination
+     * Show the table from a local snapshot; blocks are read from the snapshot file instead of the database
      */
-    private void loadTableDataPaginated(String tableName, int page, int recordsPerPage) {
+    public void loadSnapshotPreview(TableSnapshot snapshot) {
+        if (!snapshot.getTableName().equals(currentTableName)) {
+            this.projection = new ArrayList<>();
+        }
+        this.currentTableName = snapshot.getTableName();
+        cancelFilteredCount();
+        this.snapshot = snapshot;
+        this.snapshotMatches = null;
+        this.keysetPagination = null;
+        this.activeFilterConditions = null;
+        this.filteredPagination = null;
+
+        paginationComponent.setTotalRecords(snapshot.getRowCount(), false);
+        paginationComponent.setCurrentPage(1);
+        paginationComponent.setRecordsPerPage(100);
+
+        loadVirtualRows(currentTableName);
+    }
+
+    /**
+     * Load the first block of the table and show it as a virtual list covering all rows;
+     * further blocks are fetched while scrolling
+     */
+    private void loadVirtualRows(String tableName) {
         setLoading(true);
-        updateStatus("Lade Seite " + page + " von " + tableName + "...");
+        updateStatus("Lade Daten von " + tableName + "...");
 
+        QueryHandle queryHandle = new QueryHandle();
+        VirtualRowList.BlockLoader blockLoader = previewBlockLoader(tableName);
         Task<QueryResult> loadDataTask = new Task<QueryResult>() {
             @Override
             protected QueryResult call() throws Exception {
-                // Use SQL Server pagination syntax
-                int offset = (page - 1) * recordsPerPage;
-                String sql = "SELECT * FROM " + tableName +
-                           " ORDER BY (SELECT NULL) OFFSET " + offset +
-                           " ROWS FETCH NEXT " + recordsPerPage + " ROWS ONLY";
-                return databaseManager.executeQuery(sql);
+                return blockLoader.loadBlock(0, queryHandle);
             }
 
             @Override
             protected void succeeded() {
                 Platform.runLater(() -> {
+                    if (queryHandle.isCancelled()) {
+                        return; // superseded by a newer request
+                    }
                     QueryResult result = getValue();
+                    if (!result.isSuccess()) {
+                        updateStatus("Fehler beim Laden der Daten: " + result.getMessage());
+                        setLoading(false);
+                        return;
+                    }
                     setupPreviewTableColumns(result);
+                    if (columnModel != null) {
+                        columnModel.setSortable(false); // sorting would need all rows in memory
+                    }
 
-                    ObservableList<Map<String, Object>> previewRows =
-                        FXCollections.observableArrayList(result.getData());
-                    previewTableView.setItems(previewRows);
-
-                    // Update status
-                    int startRecord = (page - 1) * recordsPerPage + 1;
-                    int endRecord = Math.min(page * recordsPerPage, (int)paginationComponent.getTotalRecords());
-                    updateStatus("Seite " + page + " geladen: Datensätze " + startRecord + "-" + endRecord);
+                    VirtualRowList rows = new VirtualRowList(paginationComponent.getTotalRecords(),
+                        !paginationComponent.isTotalApproximate(), PREVIEW_BLOCK_SIZE, PREVIEW_MAX_BLOCKS,
+                        blockLoader);
+                    rows.setOnLoadFailed(message -> updateStatus("Fehler beim Laden der Daten: " + message));
+                    rows.putBlock(0, result.getData());
+                    showVirtualRows(rows);
 
+                    updateStatus("Tabelle '" + tableName + "' geladen - weitere Datensätze werden beim Scrollen geladen");
                     setLoading(false);
                 });
             }
@@ -166,161 +267,528 @@ public class TablePreviewComponent {
             @Override
             protected void failed() {
                 Platform.runLater(() -> {
+                    if (queryHandle.isCancelled()) {
+                        return;
+                    }
                     updateStatus("Fehler beim Laden der Daten: " + getException().getMessage());
                     setLoading(false);
-                    logger.error("Failed to load paginated data for table: " + tableName, getException());
+                    logger.error("Failed to load preview data for table: " + tableName, getException());
                 });
             }
         };
 
-        Thread loadThread = new Thread(loadDataTask);
-        loadThread.setDaemon(true);
-        loadThread.start();
+        startLatest(loadDataTask, queryHandle);
     }
 
     /**
-     * Setup table columns dynamically based on query result
+     * Loader for preview blocks: rows of the snapshot if one is shown, otherwise pages of the
+     * keyset pagination (neighbours seek, jumps use OFFSET)
      */
-    private void setupPreviewTableColumns(QueryResult queryResult) {
-        previewTableView.getColumns().clear();
+    private VirtualRowList.BlockLoader previewBlockLoader(String tableName) {
+        TableSnapshot source = snapshot;
+        if (source != null) {
+            List<String> columns = new ArrayList<>(projection);
+            return (block, handle) -> readSnapshotBlock(source, columns, block);
+        }
+        return (block, handle) -> databaseManager.fetchPage(
+            getKeysetPagination(tableName, PREVIEW_BLOCK_SIZE), block + 1, handle);
+    }
 
-        if (queryResult.getData().isEmpty()) {
-            return;
+    private QueryResult readSnapshotBlock(TableSnapshot source, List<String> columns, int block) {
+        long startTime = System.currentTimeMillis();
+        try {
+            return new QueryResult(true, "Success",
+                source.read(columns, block * PREVIEW_BLOCK_SIZE, PREVIEW_BLOCK_SIZE),
+                System.currentTimeMillis() - startTime);
+        } catch (IOException e) {
+            logger.error("Failed to read block {} of snapshot {}", block, source.getPath(), e);
+            return new QueryResult(false, "Snapshot nicht lesbar: " + e.getMessage(), null, null);
+        }
+    }
+
+    /**
+     * Show a new virtual list, releasing the blocks of the previous one
+     */
+    private void showVirtualRows(VirtualRowList rows) {
+        disposeVirtualRows();
+        virtualRows = rows;
+        previewTableView.setItems(rows);
+    }
+
+    private void disposeVirtualRows() {
+        if (virtualRows != null) {
+            virtualRows.dispose();
+            virtualRows = null;
         }
+    }
 
-        // Get column names from first row
-        Map<String, Object> firstRow = queryResult.getData().get(0);
+    /**
+     * Run the request and abort the previous one: its statements are cancelled on
+     * the server and its result is no longer delivered to the view
+     */
+    private void startLatest(Task<?> task, QueryHandle queryHandle) {
+        cancelActiveQuery();
+        activeTask = task;
+        activeQuery = queryHandle;
+
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.HIGH, task);
+    }
 
-        for (String columnName : firstRow.keySet()) {
-            // Skip ID column - not needed for preview
-            if ("id".equalsIgnoreCase(columnName)) {
-                continue;
+    private void cancelActiveQuery() {
+        if (activeQuery != null) {
+            activeQuery.cancel();
+            activeQuery = null;
+        }
+        if (activeTask != null) {
+            activeTask.cancel(false);
+            activeTask = null;
+        }
+    }
+
+    /**
+     * Refine an approximate total with an exact COUNT(*) in the background
+     */
+    private void loadExactCount(String tableName) {
+        updateStatus("Zähle Datensätze von " + tableName + "...");
+
+        Task<Long> countTask = new Task<Long>() {
+            @Override
+            protected Long call() throws Exception {
+                long count = databaseManager.getRecordCount(tableName);
+                if (count < 0) {
+                    throw new IllegalStateException("Zählung fehlgeschlagen");
+                }
+                return count;
             }
 
-            // Get German display name for column
-            String displayName = getGermanColumnName(columnName);
-
-            TableColumn<Map<String, Object>, Object> column = new TableColumn<>(displayName);
-            column.setCellValueFactory(cellData -> {
-                Object value = cellData.getValue().get(columnName);
-                return new javafx.beans.property.SimpleObjectProperty<>(value);
-            });
-
-            // Set cell factory for better display with special formatting
-            column.setCellFactory(col -> new TableCell<Map<String, Object>, Object>() {
-                @Override
-                protected void updateItem(Object item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                        setAlignment(Pos.CENTER_LEFT); // Default alignment
-                    } else {
-                        // Special formatting for maka (Sonder Abt.) column
-                        if ("maka".equalsIgnoreCase(columnName)) {
-                            setText(getMakaDisplayText(item));
-                            setAlignment(Pos.CENTER); // Center alignment for Sonder Abt.
-                        } else if ("merkmalsposition".equalsIgnoreCase(columnName)) {
-                            setText(item.toString());
-                            setAlignment(Pos.CENTER); // Center alignment for Position
-                        } else if ("fertigungsliste".equalsIgnoreCase(columnName)) {
-                            setText(item.toString());
-                            setAlignment(Pos.CENTER); // Center alignment for Fertigungsliste
-                        } else {
-                            setText(item.toString());
-                            setAlignment(Pos.CENTER_LEFT); // Default left alignment
-                        }
+            @Override
+            protected void succeeded() {
+                Platform.runLater(() -> {
+                    if (!tableName.equals(currentTableName)) {
+                        return; // table changed meanwhile
                     }
-                }
-            });
+                    long exactCount = getValue();
+                    paginationComponent.setTotalRecords(exactCount, false);
+                    if (virtualRows != null && activeFilterConditions == null) {
+                        virtualRows.setTotalRows(exactCount, true);
+                    }
+                    updateStatus("Tabelle '" + tableName + "': " + exactCount + " Datensätze (exakt)");
+                });
+            }
+
+            @Override
+            protected void failed() {
+                Platform.runLater(() -> {
+                    paginationComponent.cancelPendingPage();
+                    updateStatus("Fehler beim Zählen der Datensätze: " + getException().getMessage());
+                    logger.error("Failed to count records for table: " + tableName, getException());
+                });
+            }
+        };
+
+        // Full table scan - bulk lane, ahead of exports
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.BULK, TaskScheduler.Priority.HIGH, countTask);
+    }
 
-            previewTableView.getColumns().add(column);
+    /**
+     * Count the filtered rows on request; filtered pages are shown without a total until then.
+     * The count runs next to the page loads and is aborted on the server when the filter changes.
+     */
+    private void loadFilteredCount(String tableName) {
+        KeysetPagination pagination = filteredPagination;
+        if (pagination == null) {
+            return;
+        }
+        updateStatus("Zähle gefilterte Datensätze...");
+
+        cancelFilteredCount();
+        QueryHandle countHandle = new QueryHandle();
+        filteredCountQuery = countHandle;
+
+        databaseManager.countFilteredRecords(pagination, countHandle).thenAccept(count -> Platform.runLater(() -> {
+            if (countHandle.isCancelled() || pagination != filteredPagination) {
+                return; // filter changed meanwhile
+            }
+            if (count < 0) {
+                paginationComponent.cancelPendingPage();
+                updateStatus("Fehler beim Zählen der Datensätze: Zählung fehlgeschlagen");
+                logger.error("Failed to count filtered records for table: {}", tableName);
+                return;
+            }
+            int page = paginationComponent.getCurrentPage();
+            boolean jumpPending = paginationComponent.hasPendingPage();
+            paginationComponent.setTotalRecords(count, false);
+            if (!jumpPending) {
+                paginationComponent.setCurrentPage(page); // stay on the loaded page
+            }
+            updateStatus("Filter angewendet: " + count + " Datensätze gefunden");
+        }));
+    }
+
+    private void cancelFilteredCount() {
+        if (filteredCountQuery != null) {
+            filteredCountQuery.cancel();
+            filteredCountQuery = null;
         }
     }
 
     /**
-     * Get German display name for database column
+     * Get the keyset pagination state for the table, creating it when table or page size changed
      */
-    private String getGermanColumnName(String columnName) {
-        switch (columnName.toLowerCase()) {
-            case "identnr": return "Identnr";
-            case "merkmal": return "Merkmal";
-            case "auspraegung": return "Ausprägung";
-            case "drucktext": return "Drucktext";
-            case "sondermerkmal": return "Sondermerkmal";
-            case "merkmalsposition": return "Position";
-            case "maka": return "Sonder Abt.";
-            case "fertigungsliste": return "Fertigungsliste";
-            default: return columnName; // Fallback to original name
+    private synchronized KeysetPagination getKeysetPagination(String tableName, int recordsPerPage) {
+        if (keysetPagination == null
+                || !keysetPagination.getTableName().equals(tableName)
+                || keysetPagination.getPageSize() != recordsPerPage
+                || !keysetPagination.getProjection().equals(projection)) {
+            List<String> keyColumns = databaseManager.findUniqueKeyColumns(tableName);
+            keysetPagination = new KeysetPagination(tableName, ParameterizedQuery.empty(), keyColumns,
+                recordsPerPage, projection);
         }
+        return keysetPagination;
     }
 
     /**
-     * Convert maka numeric value to German color text
+     * Limit the preview to the selected report columns (all columns if empty) and reload the current view
      */
-    private String getMakaDisplayText(Object makaValue) {
-        if (makaValue == null) {
-            return "Keine";
+    public void setProjection(List<String> columns) {
+        List<String> newProjection = columns != null ? new ArrayList<>(columns) : new ArrayList<>();
+        if (newProjection.equals(projection)) {
+            return;
         }
 
-        try {
-            int value = Integer.parseInt(makaValue.toString());
-            switch (value) {
-                case 0: return "Keine";
-                case 1: return "schwarz";
-                case 2: return "blau";
-                case 3: return "rot";
-                case 4: return "orange";
-                case 5: return "grün";
-                case 6: return "weiss";
-                case 7: return "gelb";
-                default: return "Unbekannt (" + value + ")";
-            }
-        } catch (NumberFormatException e) {
-            return makaValue.toString();
+        synchronized (this) {
+            this.projection = newProjection;
+            this.keysetPagination = null;
+        }
+
+        if (currentTableName == null || databaseManager == null) {
+            return;
+        }
+        if (activeFilterConditions != null) {
+            showFilteredData(currentTableName, activeFilterConditions);
+        } else {
+            loadVirtualRows(currentTableName);
+        }
+    }
+
+    /**
+     * Get the pagination for the filtered rows, creating it when filter, page size or projection changed
+     */
+    private synchronized KeysetPagination getFilteredPagination(String tableName, List<FilterCondition> conditions,
+                                                                int recordsPerPage) {
+        ParameterizedQuery where = databaseManager.buildFilter(tableName, conditions);
+        if (filteredPagination == null
+                || !filteredPagination.getTableName().equals(tableName)
+                || !filteredPagination.getWhere().getCacheKey().equals(where.getCacheKey())
+                || filteredPagination.getPageSize() != recordsPerPage
+                || !filteredPagination.getProjection().equals(projection)) {
+            List<String> keyColumns = databaseManager.findUniqueKeyColumns(tableName);
+            filteredPagination = new KeysetPagination(tableName, where, keyColumns, recordsPerPage, projection);
+        }
+        return filteredPagination;
+    }
+
+    /**
+     * Setup table columns for the query result; the columns are only rebuilt when the schema changes
+     */
+    private void setupPreviewTableColumns(QueryResult queryResult) {
+        List<String> columnNames = getResultColumnNames(queryResult);
+        if (columnNames.isEmpty()) {
+            previewTableView.getColumns().clear();
+            columnModel = null;
+            return;
         }
+
+        if (columnModel != null && columnModel.matches(columnNames)
+                && columnModel.isShownIn(previewTableView.getColumns())) {
+            return; // same schema - keep columns, their order, widths and cell factories
+        }
+
+        columnModel = PreviewColumnModel.build(columnNames, DecodingDictionary.getInstance(), this::showFullValue);
+        previewTableView.getColumns().setAll(columnModel.getTableColumns());
+    }
+
+    private List<String> getResultColumnNames(QueryResult queryResult) {
+        if (queryResult.getColumnarData() != null) {
+            return queryResult.getColumnarData().getColumnNames();
+        }
+        if (queryResult.getData() == null || queryResult.getData().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(queryResult.getData().get(0).keySet());
     }
 
     /**
-     * Show filtered data (called from filter components)
+     * Load the complete value of a truncated cell and show it in a dialog
      */
-    public void showFilteredData(String tableName, String whereClause) {
+    private void showFullValue(String columnName, Map<String, Object> row) {
+        String tableName = currentTableName;
+        updateStatus("Lade vollständigen Wert von " + columnName + "...");
+
+        Task<DatabaseManager.FullValueResult> loadValueTask = new Task<DatabaseManager.FullValueResult>() {
+            @Override
+            protected DatabaseManager.FullValueResult call() throws Exception {
+                return databaseManager.loadFullValue(tableName, columnName, row);
+            }
+
+            @Override
+            protected void succeeded() {
+                Platform.runLater(() -> {
+                    DatabaseManager.FullValueResult result = getValue();
+                    if (!result.isSuccess()) {
+                        updateStatus("Fehler beim Laden des Werts: " + result.getMessage());
+                        return;
+                    }
+
+                    Object value = result.getValue();
+                    String text = value instanceof byte[]
+                        ? "[" + ((byte[]) value).length + " Bytes]"
+                        : String.valueOf(value);
+
+                    TextArea textArea = new TextArea(text);
+                    textArea.setEditable(false);
+                    textArea.setWrapText(true);
+                    textArea.setPrefSize(600, 400);
+
+                    Alert dialog = new Alert(Alert.AlertType.INFORMATION);
+                    dialog.setTitle(DecodingDictionary.getInstance().getDisplayName(columnName));
+                    dialog.setHeaderText(null);
+                    dialog.getDialogPane().setContent(textArea);
+                    dialog.setResizable(true);
+                    dialog.show();
+                    updateStatus("Bereit");
+                });
+            }
+
+            @Override
+            protected void failed() {
+                Platform.runLater(() -> {
+                    updateStatus("Fehler beim Laden des Werts: " + getException().getMessage());
+                    logger.error("Failed to load full value of column: " + columnName, getException());
+                });
+            }
+        };
+
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.NORMAL, loadValueTask);
+    }
+
+    /**
+     * Show filtered data (called from filter components).
+     * The matches are paged without counting them: each page reads one row ahead
+     * to tell whether a next page exists; the total is only counted on request.
+     */
+    public void showFilteredData(String tableName, List<FilterCondition> filterConditions) {
         this.currentTableName = tableName;
+        this.activeFilterConditions = filterConditions;
+        cancelFilteredCount();
+        if (snapshot != null && snapshot.getTableName().equals(tableName)) {
+            filterSnapshot(snapshot, filterConditions);
+            return;
+        }
+        synchronized (this) {
+            this.filteredPagination = null;
+        }
+        databaseManager.invalidatePages(tableName);
+        paginationComponent.startCountFree();
+        loadFilteredPage(tableName, filterConditions, 1);
+    }
+
+    /**
+     * Filter the snapshot in memory; the matches are paged locally with an exact total
+     */
+    private void filterSnapshot(TableSnapshot source, List<FilterCondition> filterConditions) {
+        setLoading(true);
+        updateStatus("Filtere lokalen Snapshot...");
+
+        QueryHandle queryHandle = new QueryHandle();
+        long startTime = System.currentTimeMillis();
+        Task<RowBitmap> filterTask = new Task<RowBitmap>() {
+            @Override
+            protected RowBitmap call() throws Exception {
+                // Filter columns are decoded for this match; the snapshot keeps only those it could index
+                LocalFilter filter = LocalFilter.compile(filterConditions);
+                return filter.match(source.read(filter.getColumnNames()));
+            }
+
+            @Override
+            protected void succeeded() {
+                Platform.runLater(() -> {
+                    if (queryHandle.isCancelled() || source != snapshot) {
+                        return; // superseded by a newer request
+                    }
+                    snapshotMatches = getValue();
+                    paginationComponent.setTotalRecords(snapshotMatches.getCardinality(), false);
+                    paginationComponent.setCurrentPage(1);
+                    updateStatus("Filter angewendet: " + snapshotMatches.getCardinality() + " Datensätze gefunden (lokal, "
+                        + (System.currentTimeMillis() - startTime) + " ms)");
+                    showSnapshotMatches(1);
+                });
+            }
+
+            @Override
+            protected void failed() {
+                Platform.runLater(() -> {
+                    if (queryHandle.isCancelled()) {
+                        return;
+                    }
+                    updateStatus("Fehler beim Filtern: " + getException().getMessage());
+                    setLoading(false);
+                    logger.error("Failed to filter snapshot of table: " + source.getTableName(), getException());
+                });
+            }
+        };
+
+        startLatest(filterTask, queryHandle);
+    }
+
+    /**
+     * Show one page of the snapshot filter result; only the snapshot blocks holding
+     * the page's rows are read
+     */
+    private void showSnapshotMatches(int page) {
+        TableSnapshot source = snapshot;
+        RowBitmap matches = snapshotMatches;
+        List<String> columns = new ArrayList<>(projection);
+        int recordsPerPage = paginationComponent.getRecordsPerPage();
+        int[] rowIds = matches.toArray((page - 1) * recordsPerPage, recordsPerPage);
+        setLoading(true);
+
+        QueryHandle queryHandle = new QueryHandle();
+        Task<ColumnarResult> pageTask = new Task<ColumnarResult>() {
+            @Override
+            protected ColumnarResult call() throws Exception {
+                return source.readRows(columns, rowIds);
+            }
+
+            @Override
+            protected void succeeded() {
+                Platform.runLater(() -> {
+                    if (queryHandle.isCancelled() || source != snapshot || matches != snapshotMatches) {
+                        return; // superseded by a newer request
+                    }
+                    ColumnarResult rows = getValue();
+                    setupPreviewTableColumns(new QueryResult(true, "Success", rows, 0));
+                    if (columnModel != null) {
+                        columnModel.setSortable(true);
+                    }
+                    disposeVirtualRows();
+                    previewTableView.setItems(FXCollections.observableArrayList(rows.asRowList()));
+                    setLoading(false);
+                });
+            }
+
+            @Override
+            protected void failed() {
+                Platform.runLater(() -> {
+                    if (queryHandle.isCancelled()) {
+                        return;
+                    }
+                    updateStatus("Snapshot nicht lesbar: " + getException().getMessage());
+                    setLoading(false);
+                    logger.error("Failed to read page {} of snapshot {}", page, source.getPath(), getException());
+                });
+            }
+        };
+
+        startLatest(pageTask, queryHandle);
+    }
+
+    /**
+     * Load one page of the filtered rows. Rows are shown batch by batch while the
+     * page is still being read, so the first rows appear after one round trip.
+     */
+    private void loadFilteredPage(String tableName, List<FilterCondition> filterConditions, int page) {
+        int recordsPerPage = paginationComponent.getRecordsPerPage();
         setLoading(true);
         updateStatus("Lade gefilterte Daten...");
 
+        QueryHandle queryHandle = new QueryHandle();
+        KeysetPagination[] usedPagination = new KeysetPagination[1];
+        ObservableList<Map<String, Object>> filteredRows = FXCollections.observableArrayList();
+        RowBatchAppender appender = new RowBatchAppender(batches -> {
+            if (queryHandle.isCancelled()) {
+                return; // superseded by a newer request
+            }
+            if (previewTableView.getItems() != filteredRows) {
+                // First batch: columns from its schema, then replace the previous rows
+                setupPreviewTableColumns(new QueryResult(true, "Success", batches.get(0), 0));
+                if (columnModel != null) {
+                    columnModel.setSortable(false); // sorting while rows are appended would reshuffle them
+                }
+                disposeVirtualRows();
+                previewTableView.setItems(filteredRows);
+            }
+            for (ColumnarResult batch : batches) {
+                filteredRows.addAll(batch.asRowList());
+            }
+            updateStatus("Lade weitere Datensätze... (" + filteredRows.size() + " geladen)");
+        });
+
         Task<QueryResult> filterTask = new Task<QueryResult>() {
             @Override
             protected QueryResult call() throws Exception {
-                String sql = "SELECT * FROM " + tableName;
-                if (whereClause != null && !whereClause.trim().isEmpty()) {
-                    sql += " WHERE " + whereClause;
-                }
-                sql += " ORDER BY (SELECT NULL) OFFSET 0 ROWS FETCH NEXT 1000 ROWS ONLY";
-                return databaseManager.executeQuery(sql);
+                // Filter values are bound as parameters, not written into the SQL
+                usedPagination[0] = getFilteredPagination(tableName, filterConditions, recordsPerPage);
+                return databaseManager.fetchPage(usedPagination[0], page, queryHandle, appender::offer);
             }
 
             @Override
             protected void succeeded() {
                 Platform.runLater(() -> {
+                    if (queryHandle.isCancelled()) {
+                        return; // superseded by a newer request
+                    }
                     QueryResult result = getValue();
-                    setupPreviewTableColumns(result);
+                    if (!result.isSuccess()) {
+                        appender.close();
+                        updateStatus("Fehler beim Filtern: " + result.getMessage());
+                        setLoading(false);
+                        return;
+                    }
+
+                    int rowCount = result.getData().size();
+                    if (rowCount == 0 && page > 1) {
+                        // Rows were deleted since the previous page was read - step back
+                        setLoading(false);
+                        if (paginationComponent.isCountFree()) {
+                            paginationComponent.setPageResult(page - 1, recordsPerPage, false);
+                        } else {
+                            paginationComponent.setCurrentPage(page - 1);
+                        }
+                        loadFilteredPage(tableName, filterConditions, page - 1);
+                        return;
+                    }
 
-                    ObservableList<Map<String, Object>> filteredRows =
-                        FXCollections.observableArrayList(result.getData());
-                    previewTableView.setItems(filteredRows);
+                    appender.flush();
+                    if (previewTableView.getItems() != filteredRows) {
+                        // No rows streamed (empty result) - still show the columns
+                        setupPreviewTableColumns(result);
+                        disposeVirtualRows();
+                        previewTableView.setItems(filteredRows);
+                    }
+                    if (columnModel != null) {
+                        columnModel.setSortable(true);
+                    }
 
-                    updateStatus("Filter angewendet: " + result.getData().size() + " Datensätze gefunden");
+                    boolean hasNextPage = usedPagination[0].hasNextPage(page, rowCount);
+                    if (paginationComponent.isCountFree()) {
+                        paginationComponent.setPageResult(page, rowCount, hasNextPage);
+                    }
+                    // Next / Previous usually find their page in the cache
+                    databaseManager.prefetchAdjacentPages(usedPagination[0], page, rowCount);
+                    updateStatus("Filter angewendet: Seite " + page + " (" + rowCount + " Datensätze"
+                        + (hasNextPage ? ", weitere vorhanden)" : ")"));
                     setLoading(false);
-
-                    // Update pagination for filtered data
-                    paginationComponent.setTotalRecords(result.getData().size());
-                    paginationComponent.setCurrentPage(1);
                 });
             }
 
             @Override
             protected void failed() {
                 Platform.runLater(() -> {
+                    appender.close();
+                    if (queryHandle.isCancelled()) {
+                        return;
+                    }
                     updateStatus("Fehler beim Filtern: " + getException().getMessage());
                     setLoading(false);
                     logger.error("Failed to load filtered data", getException());
@@ -328,19 +796,27 @@ public class TablePreviewComponent {
             }
         };
 
-        Thread filterThread = new Thread(filterTask);
-        filterThread.setDaemon(true);
-        filterThread.start();
+        startLatest(filterTask, queryHandle);
     }
 
     /**
      * Clear all data and reset view
      */
     public void clearPreview() {
+        cancelActiveQuery();
+        cancelFilteredCount();
+        disposeVirtualRows();
         previewTableView.getColumns().clear();
+        columnModel = null;
         previewTableView.setItems(FXCollections.observableArrayList());
         paginationComponent.reset();
         currentTableName = null;
+        keysetPagination = null;
+        activeFilterConditions = null;
+        filteredPagination = null;
+        snapshot = null;
+        snapshotMatches = null;
+        projection = new ArrayList<>();
         updateStatus("Bereit");
     }
 
@@ -372,6 +848,13 @@ public class TablePreviewComponent {
         return currentTableName;
     }
 
+    /**
+     * Snapshot the preview is read from, or null when it reads from the database
+     */
+    public TableSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     public PaginationComponent getPaginationComponent() {
         return paginationComponent;
     }
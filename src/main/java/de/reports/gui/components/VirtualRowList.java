@@ -0,0 +1,234 @@
+package de.reports.gui.components;
+
+import de.reports.database.QueryHandle;
+import de.reports.database.QueryResult;
+import de.reports.utils.TaskScheduler;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-only ObservableList for the preview TableView that only holds the rows near the viewport.
+ *
+ * The list reports the total row count, so the scroll bar covers the whole
+ * table. Rows are loaded in blocks when the TableView first asks for them; until
+ * then an empty placeholder row is returned. At most maxBlocks blocks are kept,
+ * the ones farthest from the last requested row are evicted, so memory use does
+ * not depend on the table size. Loads of blocks the viewport has left are
+ * cancelled when a new block is requested, so a fast scroll does not queue
+ * stale block queries ahead of the visible one. With an approximate total the
+ * list grows when the last block turns out full, and it shrinks when the data
+ * ends early.
+ *
+ * All methods must be called on the JavaFX application thread.
+ */
+public class VirtualRowList extends ObservableListBase<Map<String, Object>> {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualRowList.class);
+    private static final Map<String, Object> PLACEHOLDER = Collections.emptyMap();
+    // Blocks on either side of the last requested one whose loads are kept running
+    private static final int LOAD_WINDOW_BLOCKS = 1;
+
+    /**
+     * Loads one block of rows; called on a background thread
+     */
+    public interface BlockLoader {
+        QueryResult loadBlock(int block, QueryHandle handle);
+    }
+
+    private final int blockSize;
+    private final int maxBlocks;
+    private final BlockLoader loader;
+
+    private final Map<Integer, List<Map<String, Object>>> blocks = new HashMap<>();
+    private final Map<Integer, QueryHandle> loadingBlocks = new HashMap<>();
+    private final Set<Integer> failedBlocks = new HashSet<>();
+    private int size;
+    private boolean exactSize;
+    private int lastRequestedBlock = 0;
+    private boolean disposed = false;
+    private Consumer<String> onLoadFailed;
+
+    public VirtualRowList(long totalRows, boolean exactSize, int blockSize, int maxBlocks, BlockLoader loader) {
+        this.size = (int) Math.min(Math.max(totalRows, 0), Integer.MAX_VALUE);
+        this.exactSize = exactSize;
+        this.blockSize = blockSize;
+        this.maxBlocks = Math.max(3, maxBlocks);
+        this.loader = loader;
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+
+        int block = index / blockSize;
+        lastRequestedBlock = block;
+
+        // Read ahead once the last quarter of a block is reached
+        if (index % blockSize >= blockSize - blockSize / 4 && (block + 1) * blockSize < size) {
+            requestBlock(block + 1);
+        }
+
+        List<Map<String, Object>> rows = blocks.get(block);
+        if (rows == null) {
+            requestBlock(block);
+            return PLACEHOLDER;
+        }
+        int offset = index - block * blockSize;
+        return offset < rows.size() ? rows.get(offset) : PLACEHOLDER;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add an already loaded block (e.g. the first block used to set up the columns)
+     */
+    public void putBlock(int block, List<Map<String, Object>> rows) {
+        applyBlock(block, rows);
+    }
+
+    /**
+     * Replace the total row count, e.g. once an exact count is known
+     */
+    public void setTotalRows(long totalRows, boolean exact) {
+        this.exactSize = exact;
+        resize((int) Math.min(Math.max(totalRows, 0), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Cancel running loads and drop all blocks; the list stays empty afterwards
+     */
+    public void dispose() {
+        disposed = true;
+        for (QueryHandle handle : loadingBlocks.values()) {
+            handle.cancel();
+        }
+        loadingBlocks.clear();
+        blocks.clear();
+    }
+
+    public void setOnLoadFailed(Consumer<String> onLoadFailed) {
+        this.onLoadFailed = onLoadFailed;
+    }
+
+    private void requestBlock(int block) {
+        if (disposed || blocks.containsKey(block) || loadingBlocks.containsKey(block) || failedBlocks.contains(block)) {
+            return;
+        }
+
+        cancelDistantLoads();
+        QueryHandle handle = new QueryHandle();
+        loadingBlocks.put(block, handle);
+
+        TaskScheduler.getInstance().execute(TaskScheduler.Lane.INTERACTIVE, TaskScheduler.Priority.HIGH, () -> {
+            if (handle.isCancelled()) {
+                return; // scrolled past before the load started
+            }
+            QueryResult result;
+            try {
+                result = loader.loadBlock(block, handle);
+            } catch (RuntimeException e) {
+                result = new QueryResult(false, e.getMessage(), null, null);
+            }
+
+            QueryResult loaded = result;
+            Platform.runLater(() -> {
+                if (disposed || !loadingBlocks.remove(block, handle)) {
+                    return; // list replaced or load cancelled meanwhile
+                }
+                if (loaded.isSuccess()) {
+                    applyBlock(block, loaded.getData());
+                } else if (!handle.isCancelled()) {
+                    // Not retried until the list is rebuilt, the TableView would ask again on every layout
+                    failedBlocks.add(block);
+                    logger.warn("Failed to load preview block {}: {}", block, loaded.getMessage());
+                    if (onLoadFailed != null) {
+                        onLoadFailed.accept(loaded.getMessage());
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancel the loads of blocks outside the window around the last requested block;
+     * they are requested again if the TableView comes back to them
+     */
+    private void cancelDistantLoads() {
+        Iterator<Map.Entry<Integer, QueryHandle>> loads = loadingBlocks.entrySet().iterator();
+        while (loads.hasNext()) {
+            Map.Entry<Integer, QueryHandle> load = loads.next();
+            if (Math.abs(load.getKey() - lastRequestedBlock) > LOAD_WINDOW_BLOCKS) {
+                load.getValue().cancel();
+                loads.remove();
+            }
+        }
+    }
+
+    private void applyBlock(int block, List<Map<String, Object>> rows) {
+        if (disposed) {
+            return;
+        }
+        blocks.put(block, rows);
+        evictDistantBlocks();
+
+        int start = block * blockSize;
+        int end = start + rows.size();
+        if (rows.size() < blockSize) {
+            resize(end); // the data ends in this block, whatever the count said
+        } else if (!exactSize && end >= size) {
+            resize(end + blockSize); // estimate too low - let the user scroll into the next block
+        }
+
+        int visibleEnd = Math.min(end, size);
+        if (start < visibleEnd) {
+            beginChange();
+            for (int i = start; i < visibleEnd; i++) {
+                nextSet(i, PLACEHOLDER);
+            }
+            endChange();
+        }
+    }
+
+    private void evictDistantBlocks() {
+        while (blocks.size() > maxBlocks) {
+            int farthest = -1;
+            for (int block : blocks.keySet()) {
+                if (farthest < 0 || Math.abs(block - lastRequestedBlock) > Math.abs(farthest - lastRequestedBlock)) {
+                    farthest = block;
+                }
+            }
+            blocks.remove(farthest);
+        }
+    }
+
+    private void resize(int newSize) {
+        if (newSize == size) {
+            return;
+        }
+
+        int oldSize = size;
+        size = newSize;
+        beginChange();
+        if (newSize < oldSize) {
+            nextRemove(newSize, Collections.nCopies(oldSize - newSize, PLACEHOLDER));
+        } else {
+            nextAdd(oldSize, newSize);
+        }
+        endChange();
+    }
+}
@@ -7,7 +7,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ConfigManager {
@@ -83,6 +85,29 @@ public class ConfigManager {
         }
     }
 
+    public List<String> getStringListProperty(String path, List<String> defaultValue) {
+        try {
+            String[] parts = path.split("\\.");
+            JsonNode current = config;
+
+            for (String part : parts) {
+                current = current.get(part);
+                if (current == null) {
+                    return defaultValue;
+                }
+            }
+
+            List<String> values = new ArrayList<>();
+            for (JsonNode item : current) {
+                values.add(item.asText());
+            }
+            return values;
+        } catch (Exception e) {
+            logger.warn("Failed to get list property: {}", path, e);
+            return defaultValue;
+        }
+    }
+
     public int getIntProperty(String path) {
         return getIntProperty(path, 0);
     }
@@ -215,6 +240,14 @@ public class ConfigManager {
         return getIntProperty("ui.minWindowHeight", 600);
     }
 
+    public int getFilterApplyDelayMillis() {
+        return getIntProperty("ui.filterApplyDelayMs", 400);
+    }
+
+    public int getPreviewBatchRows() {
+        return getIntProperty("ui.previewBatchRows", 50);
+    }
+
     // Database properties
     public int getConnectionTimeout() {
         return getIntProperty("database.connectionTimeout", 30000);
@@ -228,6 +261,32 @@ public class ConfigManager {
         return getIntProperty("database.maxPoolSize", 10);
     }
 
+    public int getFetchSize() {
+        return getIntProperty("database.fetchSize", 500);
+    }
+
+    public int getSchemaCacheTtl() {
+        return getIntProperty("database.schemaCacheTtl", 300000);
+    }
+
+    public long getPageCacheBudgetBytes() {
+        return getIntProperty("database.pageCacheMb", 32) * 1024L * 1024L;
+    }
+
+    public int getLargeValuePreviewLength() {
+        return getIntProperty("database.largeValuePreviewLength", 200);
+    }
+
+    // Scheduler properties
+    public boolean isVirtualThreadsEnabled() {
+        return getBooleanProperty("scheduler.virtualThreads", false);
+    }
+
+    // Snapshot properties
+    public List<String> getSnapshotTextIndexColumns() {
+        return getStringListProperty("snapshot.textIndexColumns", List.of("drucktext", "merkmal"));
+    }
+
     // Report properties
     public String getDefaultPageSize() {
         return getStringProperty("reports.defaultPageSize", "A4");
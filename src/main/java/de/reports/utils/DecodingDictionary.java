@@ -0,0 +1,216 @@
+package de.reports.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Column display names and code-to-label dictionaries (e.g. maka colours),
+ * loaded from /config/decoding.json.
+ *
+ * Lookups are prepared when the file is loaded: numeric codes map to labels
+ * through a dense array, text values through a hash map, so decoding a cell
+ * never parses the value. Preview, filters and exports all decode through
+ * this class.
+ */
+public class DecodingDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(DecodingDictionary.class);
+    private static final String DECODING_FILE = "/config/decoding.json";
+    // Larger codes are looked up in the text map instead of the array
+    private static final int MAX_DENSE_CODE = 4096;
+
+    private static DecodingDictionary instance;
+
+    private final Map<String, ColumnDecoding> columns = new HashMap<>();
+
+    private DecodingDictionary() {
+        loadDictionaries();
+    }
+
+    public static synchronized DecodingDictionary getInstance() {
+        if (instance == null) {
+            instance = new DecodingDictionary();
+        }
+        return instance;
+    }
+
+    private void loadDictionaries() {
+        try (InputStream inputStream = getClass().getResourceAsStream(DECODING_FILE)) {
+            if (inputStream == null) {
+                logger.warn("Decoding dictionary not found: {}", DECODING_FILE);
+                return;
+            }
+
+            JsonNode columnsNode = new ObjectMapper().readTree(inputStream).get("columns");
+            if (columnsNode == null) {
+                return;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = columnsNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                columns.put(field.getKey().toLowerCase(), ColumnDecoding.fromJson(field.getKey(), field.getValue()));
+            }
+            logger.info("Decoding dictionary loaded for {} columns", columns.size());
+
+        } catch (IOException e) {
+            logger.error("Failed to load decoding dictionary", e);
+        }
+    }
+
+    /**
+     * Decoding settings of a column, or null if the column has none
+     */
+    public ColumnDecoding getColumn(String columnName) {
+        return columnName != null ? columns.get(columnName.toLowerCase()) : null;
+    }
+
+    /**
+     * Display name of a column, the column name itself if none is configured
+     */
+    public String getDisplayName(String columnName) {
+        ColumnDecoding column = getColumn(columnName);
+        return column != null ? column.getDisplayName() : columnName;
+    }
+
+    /**
+     * Label of a value, or the value as text if the column has no dictionary
+     */
+    public String decode(String columnName, Object value) {
+        ColumnDecoding column = getColumn(columnName);
+        if (column != null && column.hasValueLabels()) {
+            return column.decode(value);
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Code for a label typed into a filter (case-insensitive), otherwise the input unchanged
+     */
+    public String encode(String columnName, String text) {
+        ColumnDecoding column = getColumn(columnName);
+        return column != null ? column.encode(text) : text;
+    }
+
+    /**
+     * Display settings and value dictionary of one column
+     */
+    public static class ColumnDecoding {
+        private final String displayName;
+        private final boolean centered;
+        private final String unknownFormat;
+        private final String[] labelsByCode;
+        private final Map<String, String> labelsByText;
+        private final Map<String, String> codesByLabel;
+
+        private ColumnDecoding(String displayName, boolean centered, String unknownFormat,
+                               String[] labelsByCode, Map<String, String> labelsByText,
+                               Map<String, String> codesByLabel) {
+            this.displayName = displayName;
+            this.centered = centered;
+            this.unknownFormat = unknownFormat;
+            this.labelsByCode = labelsByCode;
+            this.labelsByText = labelsByText;
+            this.codesByLabel = codesByLabel;
+        }
+
+        static ColumnDecoding fromJson(String columnName, JsonNode node) {
+            String displayName = node.has("label") ? node.get("label").asText() : columnName;
+            boolean centered = "center".equalsIgnoreCase(node.path("align").asText());
+            String unknownFormat = node.has("unknown") ? node.get("unknown").asText() : null;
+
+            Map<String, String> labelsByText = new HashMap<>();
+            Map<String, String> codesByLabel = new HashMap<>();
+            int maxCode = -1;
+
+            JsonNode values = node.get("values");
+            if (values != null) {
+                Iterator<Map.Entry<String, JsonNode>> entries = values.fields();
+                while (entries.hasNext()) {
+                    Map.Entry<String, JsonNode> entry = entries.next();
+                    String label = entry.getValue().asText();
+                    labelsByText.put(entry.getKey(), label);
+                    codesByLabel.put(label.toLowerCase(), entry.getKey());
+                    maxCode = Math.max(maxCode, denseCode(entry.getKey()));
+                }
+            }
+
+            String[] labelsByCode = new String[maxCode + 1];
+            for (Map.Entry<String, String> entry : labelsByText.entrySet()) {
+                int code = denseCode(entry.getKey());
+                if (code >= 0) {
+                    labelsByCode[code] = entry.getValue();
+                }
+            }
+
+            return new ColumnDecoding(displayName, centered, unknownFormat, labelsByCode, labelsByText, codesByLabel);
+        }
+
+        /**
+         * Array index for a code, -1 if it is not a small non-negative integer
+         */
+        private static int denseCode(String code) {
+            try {
+                int value = Integer.parseInt(code.trim());
+                return value >= 0 && value <= MAX_DENSE_CODE ? value : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public boolean isCentered() {
+            return centered;
+        }
+
+        public boolean hasValueLabels() {
+            return !labelsByText.isEmpty();
+        }
+
+        /**
+         * Label of a value: integer codes are read from the array, other values from the text map
+         */
+        public String decode(Object value) {
+            if (value == null) {
+                return null;
+            }
+
+            if (value instanceof Integer || value instanceof Short || value instanceof Long || value instanceof Byte) {
+                long code = ((Number) value).longValue();
+                if (code >= 0 && code < labelsByCode.length && labelsByCode[(int) code] != null) {
+                    return labelsByCode[(int) code];
+                }
+            }
+
+            String text = value.toString();
+            String label = labelsByText.get(text);
+            if (label != null) {
+                return label;
+            }
+            if (unknownFormat != null && value instanceof Number) {
+                return unknownFormat.replace("{0}", text);
+            }
+            return text;
+        }
+
+        /**
+         * Code for a label, otherwise the input unchanged
+         */
+        public String encode(String text) {
+            if (text == null) {
+                return null;
+            }
+            String code = codesByLabel.get(text.trim().toLowerCase());
+            return code != null ? code : text;
+        }
+    }
+}
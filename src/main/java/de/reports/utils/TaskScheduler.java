@@ -0,0 +1,285 @@
+package de.reports.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide scheduler for background work.
+ *
+ * Work is split into lanes so that a long export never blocks the preview:
+ * INTERACTIVE for user-triggered UI loads, BACKGROUND for helper queries the
+ * interactive work waits on (counts, prefetch) and BULK for scans, exports
+ * and report generation. Each lane has a bounded number of threads derived
+ * from the connection pool size and runs queued tasks by priority (FIFO
+ * within the same priority). With scheduler.virtualThreads enabled and a JDK
+ * that supports them, the lanes run on virtual threads; the bounds still apply.
+ */
+public class TaskScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TaskScheduler.class);
+
+    public enum Lane {
+        INTERACTIVE("interactive"),
+        BACKGROUND("background"),
+        BULK("bulk");
+
+        private final String threadPrefix;
+
+        Lane(String threadPrefix) {
+            this.threadPrefix = threadPrefix;
+        }
+
+        public String getThreadPrefix() {
+            return threadPrefix;
+        }
+    }
+
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    private static TaskScheduler instance;
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private TaskScheduler() {
+        ConfigManager configManager = ConfigManager.getInstance();
+        int poolSize = Math.max(1, configManager.getMaxPoolSize());
+        boolean useVirtualThreads = configManager.isVirtualThreadsEnabled();
+
+        // Keep the lanes together within the number of pooled connections
+        lanes.put(Lane.INTERACTIVE, new LaneExecutor(Lane.INTERACTIVE, Math.max(2, poolSize / 2), useVirtualThreads));
+        lanes.put(Lane.BACKGROUND, new LaneExecutor(Lane.BACKGROUND, Math.max(1, poolSize / 4), useVirtualThreads));
+        lanes.put(Lane.BULK, new LaneExecutor(Lane.BULK, Math.max(1, poolSize / 4), useVirtualThreads));
+
+        logger.info("Task scheduler started (interactive: {}, background: {}, bulk: {}, virtual threads: {})",
+            lanes.get(Lane.INTERACTIVE).maxThreads, lanes.get(Lane.BACKGROUND).maxThreads,
+            lanes.get(Lane.BULK).maxThreads, lanes.get(Lane.INTERACTIVE).virtual);
+    }
+
+    public static synchronized TaskScheduler getInstance() {
+        if (instance == null) {
+            instance = new TaskScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Run a task (e.g. a JavaFX Task) on the given lane
+     */
+    public void execute(Lane lane, Priority priority, Runnable task) {
+        lanes.get(lane).submit(task, priority, sequence.getAndIncrement());
+    }
+
+    /**
+     * Run a callable on the given lane and return its future
+     */
+    public <T> Future<T> submit(Lane lane, Priority priority, Callable<T> callable) {
+        FutureTask<T> future = new FutureTask<>(callable);
+        execute(lane, priority, future);
+        return future;
+    }
+
+    /**
+     * Executor view of a lane with a fixed priority (for CompletableFuture)
+     */
+    public Executor executor(Lane lane, Priority priority) {
+        return task -> execute(lane, priority, task);
+    }
+
+    public LaneMetrics getMetrics(Lane lane) {
+        return lanes.get(lane).snapshot();
+    }
+
+    /**
+     * Stop all lanes; queued tasks are dropped, running tasks are interrupted
+     */
+    public void shutdown() {
+        for (LaneExecutor laneExecutor : lanes.values()) {
+            logger.info("Scheduler {}", laneExecutor.snapshot());
+            laneExecutor.pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runnable ordered by priority, then submission order
+     */
+    private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final Runnable task;
+        private final Priority priority;
+        private final long sequence;
+        private final long submittedAt = System.nanoTime();
+
+        PrioritizedTask(Runnable task, Priority priority, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Bounded, prioritized pool of one lane with its counters
+     */
+    private static class LaneExecutor {
+        private final Lane lane;
+        private final int maxThreads;
+        private final boolean virtual;
+        private final ThreadPoolExecutor pool;
+
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        LaneExecutor(Lane lane, int maxThreads, boolean useVirtualThreads) {
+            this.lane = lane;
+            this.maxThreads = maxThreads;
+
+            ThreadFactory threadFactory = useVirtualThreads ? createVirtualThreadFactory(lane) : null;
+            this.virtual = threadFactory != null;
+            if (threadFactory == null) {
+                threadFactory = createPlatformThreadFactory(lane);
+            }
+
+            this.pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), threadFactory) {
+                @Override
+                protected void beforeExecute(Thread thread, Runnable runnable) {
+                    long waited = System.nanoTime() - ((PrioritizedTask) runnable).submittedAt;
+                    totalWaitNanos.addAndGet(waited);
+                    maxWaitNanos.accumulateAndGet(waited, Math::max);
+                }
+            };
+            this.pool.allowCoreThreadTimeOut(true);
+        }
+
+        void submit(Runnable task, Priority priority, long sequence) {
+            submitted.incrementAndGet();
+            pool.execute(new PrioritizedTask(() -> {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                    completed.incrementAndGet();
+                } catch (RuntimeException | Error e) {
+                    failed.incrementAndGet();
+                    logger.error("Task failed in {} lane", lane.getThreadPrefix(), e);
+                    throw e;
+                } finally {
+                    totalRunNanos.addAndGet(System.nanoTime() - start);
+                }
+            }, priority, sequence));
+        }
+
+        LaneMetrics snapshot() {
+            return new LaneMetrics(lane, maxThreads, pool.getActiveCount(), pool.getQueue().size(),
+                submitted.get(), completed.get(), failed.get(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(totalRunNanos.get()));
+        }
+
+        private static ThreadFactory createPlatformThreadFactory(Lane lane) {
+            AtomicInteger threadNumber = new AtomicInteger(1);
+            return runnable -> {
+                Thread thread = new Thread(runnable, lane.getThreadPrefix() + "-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+
+        /**
+         * Thread.ofVirtual().name(prefix, 1).factory() via reflection - the project targets Java 11
+         */
+        private static ThreadFactory createVirtualThreadFactory(Lane lane) {
+            try {
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Method name = builderClass.getMethod("name", String.class, long.class);
+                builder = name.invoke(builder, lane.getThreadPrefix() + "-v", 1L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                logger.info("Virtual threads not available on this JDK, using platform threads");
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Snapshot of a lane's counters
+     */
+    public static class LaneMetrics {
+        private final Lane lane;
+        private final int maxThreads;
+        private final int activeThreads;
+        private final int queuedTasks;
+        private final long submittedTasks;
+        private final long completedTasks;
+        private final long failedTasks;
+        private final long totalWaitMillis;
+        private final long maxWaitMillis;
+        private final long totalRunMillis;
+
+        public LaneMetrics(Lane lane, int maxThreads, int activeThreads, int queuedTasks,
+                           long submittedTasks, long completedTasks, long failedTasks,
+                           long totalWaitMillis, long maxWaitMillis, long totalRunMillis) {
+            this.lane = lane;
+            this.maxThreads = maxThreads;
+            this.activeThreads = activeThreads;
+            this.queuedTasks = queuedTasks;
+            this.submittedTasks = submittedTasks;
+            this.completedTasks = completedTasks;
+            this.failedTasks = failedTasks;
+            this.totalWaitMillis = totalWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.totalRunMillis = totalRunMillis;
+        }
+
+        public Lane getLane() { return lane; }
+        public int getMaxThreads() { return maxThreads; }
+        public int getActiveThreads() { return activeThreads; }
+        public int getQueuedTasks() { return queuedTasks; }
+        public long getSubmittedTasks() { return submittedTasks; }
+        public long getCompletedTasks() { return completedTasks; }
+        public long getFailedTasks() { return failedTasks; }
+        public long getTotalWaitMillis() { return totalWaitMillis; }
+        public long getMaxWaitMillis() { return maxWaitMillis; }
+        public long getTotalRunMillis() { return totalRunMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("%s lane: %d/%d active, %d queued, %d submitted, %d completed, %d failed, " +
+                    "wait total %d ms (max %d ms), run total %d ms",
+                lane.getThreadPrefix(), activeThreads, maxThreads, queuedTasks, submittedTasks,
+                completedTasks, failedTasks, totalWaitMillis, maxWaitMillis, totalRunMillis);
+        }
+    }
+}